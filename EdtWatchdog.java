@@ -0,0 +1,140 @@
+// Import packages
+import java.awt.EventQueue;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Detects freezes of the Swing event dispatch thread. A daemon thread posts a heartbeat to the EDT
+// every few milliseconds; if one has not run within the threshold, the EDT is stalled and its stack is
+// sampled repeatedly until the heartbeat gets through. Each stall then appends a short report to
+// edt-stalls.log: the stall duration and the frames the EDT spent its time in, hottest first.
+//
+// Enabled by default; -Dpacman.watchdog=false turns it off and -Dpacman.watchdog.threshold=<ms> sets
+// the stall threshold (default 200 ms). Outside a stall it costs one tiny EDT task per heartbeat.
+public class EdtWatchdog implements Runnable {
+    private static final String REPORT_FILE = "edt-stalls.log";
+    private static final long HEARTBEAT_INTERVAL_MS = 50;
+    private static final long SAMPLE_INTERVAL_MS = 5;
+    private static final int MAX_STACK_DEPTH = 64;
+    private static final int REPORTED_FRAMES = 12;
+
+    private final long thresholdNanos;
+
+    // Written by the heartbeat task on the EDT, read by the watchdog thread
+    private volatile long lastBeatNanos = System.nanoTime();
+    private volatile Thread edt;
+    private volatile boolean beatPending = false;
+
+    private final Runnable heartbeat = () -> {
+        edt = Thread.currentThread();
+        lastBeatNanos = System.nanoTime();
+        beatPending = false;
+    };
+
+    private EdtWatchdog(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+    }
+
+    // Starts the watchdog unless disabled by system property.
+    public static void start() {
+        if (!Boolean.parseBoolean(System.getProperty("pacman.watchdog", "true"))) return;
+
+        long threshold = Long.getLong("pacman.watchdog.threshold", 200);
+        Thread thread = new Thread(new EdtWatchdog(threshold), "edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                if (!beatPending) {
+                    beatPending = true;
+                    EventQueue.invokeLater(heartbeat);
+                }
+                Thread.sleep(HEARTBEAT_INTERVAL_MS);
+
+                long postedAt = lastBeatNanos;
+                if (beatPending && edt != null && System.nanoTime() - postedAt > thresholdNanos) {
+                    sampleStall(postedAt);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Samples the EDT stack until the pending heartbeat runs, then writes the report.
+    private void sampleStall(long stallStart) throws InterruptedException {
+        Thread target = edt;
+        Map<String, Integer> inclusive = new HashMap<>(); // Samples with the frame anywhere on the stack
+        Map<String, Integer> leaf = new HashMap<>();      // Samples with the frame on top
+        Set<String> seen = new HashSet<>();
+        int samples = 0;
+
+        while (beatPending) {
+            StackTraceElement[] stack = target.getStackTrace();
+            if (stack.length > 0) {
+                samples++;
+                leaf.merge(frameName(stack[0]), 1, Integer::sum);
+                seen.clear();
+                for (int i = 0; i < stack.length && i < MAX_STACK_DEPTH; i++) {
+                    // The event dispatch machinery is on every sample; stop where it starts
+                    if (isDispatchFrame(stack[i])) break;
+                    String frame = frameName(stack[i]);
+                    // Count recursive frames once per sample
+                    if (seen.add(frame)) {
+                        inclusive.merge(frame, 1, Integer::sum);
+                    }
+                }
+            }
+            Thread.sleep(SAMPLE_INTERVAL_MS);
+        }
+
+        long stallMillis = (lastBeatNanos - stallStart) / 1_000_000L;
+        writeReport(stallMillis, samples, leaf, inclusive);
+    }
+
+    // Appends one stall report to the log file.
+    private static void writeReport(long stallMillis, int samples, Map<String, Integer> leaf, Map<String, Integer> inclusive) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(REPORT_FILE, true))) {
+            out.println(LocalDateTime.now() + " EDT stalled for " + stallMillis + " ms (" + samples + " samples)");
+            out.println("  top of stack:");
+            printHottest(out, leaf, samples);
+            out.println("  on stack:");
+            printHottest(out, inclusive, samples);
+            out.println();
+        } catch (IOException e) {
+            System.err.println("Error writing EDT stall report: " + e.getMessage());
+        }
+        System.err.println("EDT stalled for " + stallMillis + " ms, see " + REPORT_FILE);
+    }
+
+    // Prints the most frequently sampled frames with their share of samples.
+    private static void printHottest(PrintWriter out, Map<String, Integer> counts, int samples) {
+        List<Map.Entry<String, Integer>> frames = new ArrayList<>(counts.entrySet());
+        frames.sort((a, b) -> b.getValue() - a.getValue());
+        for (int i = 0; i < frames.size() && i < REPORTED_FRAMES; i++) {
+            Map.Entry<String, Integer> frame = frames.get(i);
+            out.printf("    %3d%%  %s%n", frame.getValue() * 100 / Math.max(1, samples), frame.getKey());
+        }
+    }
+
+    private static boolean isDispatchFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        return className.startsWith("java.awt.EventQueue") || className.startsWith("java.awt.EventDispatchThread")
+            || className.equals("java.awt.event.InvocationEvent");
+    }
+
+    private static String frameName(StackTraceElement frame) {
+        return frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,146 @@
+// Import packages
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+
+/**
+ * Headless export mode that drives a GameBoard without a window and writes each frame as a numbered PNG.
+ * Frames are painted on the calling thread into pooled images, encoded in parallel on a worker pool,
+ * and written to disk strictly in frame order. The image pool and the number of frames in flight are
+ * both bounded, so memory stays flat however long the export runs. The board's clock advances one tick
+ * of game time per frame, so the export times out pellets, fruit and ghost releases exactly as live play.
+ */
+public class FrameExporter {
+    // Arrow keys used by the autopilot to steer Pacman
+    private static final int[] DIRECTION_KEYS = {KeyEvent.VK_UP, KeyEvent.VK_RIGHT, KeyEvent.VK_DOWN, KeyEvent.VK_LEFT};
+    // Autopilot picks a new direction about every second of game time, whatever the tick rate
+    private static final int TICKS_PER_TURN = Math.max(1, GameBoard.TICK_RATE * 960 / 1000);
+
+    private final GameBoard board;
+    private final File outputDir;
+    private final ExecutorService encoders;
+    private final BlockingQueue<BufferedImage> imagePool;
+    private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private final int maxInFlight;
+    private int nextFrameToWrite = 0;
+
+    // Creates an exporter that encodes on the given number of worker threads.
+    public FrameExporter(GameBoard board, File outputDir, int workers) {
+        this.board = board;
+        this.outputDir = outputDir;
+        this.encoders = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "png-encoder");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Two frames per worker keeps every core busy while the writer drains the oldest frame
+        this.maxInFlight = workers * 2;
+        this.imagePool = new ArrayBlockingQueue<>(maxInFlight);
+        for (int i = 0; i < maxInFlight; i++) {
+            imagePool.add(new BufferedImage(board.getWidth(), board.getHeight(), BufferedImage.TYPE_INT_RGB));
+        }
+    }
+
+    // Simulates and exports the given number of frames, steering Pacman with a seeded autopilot.
+    public void export(int frameCount, long seed) throws IOException, InterruptedException {
+        Random random = new Random(seed);
+        try {
+            for (int frame = 0; frame < frameCount; frame++) {
+                if (board.isGameOver()) {
+                    board.handleKeyPress(KeyEvent.VK_R);
+                } else if (frame % TICKS_PER_TURN == 0) {
+                    board.handleKeyPress(DIRECTION_KEYS[random.nextInt(DIRECTION_KEYS.length)]);
+                }
+                board.step();
+
+                // Backpressure: wait for the oldest frame to hit the disk before rendering another
+                if (inFlight.size() >= maxInFlight) {
+                    writeOldestFrame();
+                }
+
+                BufferedImage image = imagePool.take();
+                Graphics2D g2d = image.createGraphics();
+                try {
+                    board.renderFrame(g2d);
+                } finally {
+                    g2d.dispose();
+                }
+                inFlight.addLast(encoders.submit(() -> encode(image)));
+            }
+
+            // Flush everything still being encoded
+            while (!inFlight.isEmpty()) {
+                writeOldestFrame();
+            }
+        } finally {
+            encoders.shutdownNow();
+        }
+    }
+
+    // Encodes a frame to PNG bytes and returns its image to the pool.
+    private byte[] encode(BufferedImage image) throws IOException {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } finally {
+            imagePool.add(image);
+        }
+    }
+
+    // Waits for the oldest in-flight frame and writes it to disk.
+    private void writeOldestFrame() throws IOException, InterruptedException {
+        byte[] png;
+        try {
+            png = inFlight.removeFirst().get();
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to encode frame " + nextFrameToWrite, e.getCause());
+        }
+        File file = new File(outputDir, String.format("frame_%06d.png", nextFrameToWrite++));
+        Files.write(file.toPath(), png);
+    }
+
+    // Usage: java FrameExporter <output dir> <frames> [difficulty] [workers] [seed]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java FrameExporter <output dir> <frames> [difficulty] [workers] [seed]");
+            System.exit(1);
+        }
+
+        // Render without a display; must be set before any AWT class initializes
+        System.setProperty("java.awt.headless", "true");
+        GameMetrics.startIfConfigured();
+
+        File outputDir = new File(args[0]);
+        int frames = Integer.parseInt(args[1]);
+        int difficulty = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create output directory " + outputDir);
+        }
+
+        GameBoard board = new GameBoard(false);
+        board.setDifficulty(difficulty);
+
+        long start = System.nanoTime();
+        new FrameExporter(board, outputDir, workers).export(frames, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Exported %d frames in %.2fs (%.1f fps, %d workers)%n", frames, seconds, frames / seconds, workers);
+    }
+}
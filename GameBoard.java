@@ -12,19 +12,37 @@ import javax.swing.*;
 // Represents the main game board for the Pacman game.
 public class GameBoard extends JPanel {
     private final Pacman pacman;
-    private final Ghost[] ghosts;
-    private int[][] maze;
-    private final javax.swing.Timer timer; // javax.swing.Timer
+    private final Ghost[] ghosts; // Views over ghostStore, for rendering and per-ghost calls
+    private final GhostStore ghostStore;
+    private Maze maze;
+    private final javax.swing.Timer timer; // javax.swing.Timer (null for headless boards)
     private JLabel scoreLabel;
     private int score = 0;
-    private boolean[][] pellets;
-    private int pelletsRemaining = 0;
+    private PelletGrid pellets;
     private int lives = 3;
-    private final boolean[] powerPelletsActive = new boolean[4];
+    private boolean[] powerPelletsActive;
     private long powerPelletStartTime = 0;
     public static final int CELL_SIZE = 25;
-    public static final int MAZE_WIDTH = 28;
-    public static final int MAZE_HEIGHT = 31;
+
+    // Largest area shown at once; bigger mazes scroll with a camera that follows Pacman
+    public static final int VIEWPORT_COLUMNS = 28;
+    public static final int VIEWPORT_ROWS = 31;
+
+    // With -Dpacman.generate=true every level is played on a freshly generated maze, seeded from
+    // -Dpacman.generate.seed (random by default) plus the level number
+    private static final boolean GENERATE_MAZES = Boolean.getBoolean("pacman.generate");
+    private final long mazeSeed = Long.getLong("pacman.generate.seed", System.nanoTime());
+    private java.util.concurrent.CompletableFuture<Maze> nextMaze; // Generated during the level transition
+
+    // Level editor (F2): the game pauses while walls are toggled with the mouse, and applying the edits
+    // saves them to -Dpacman.editor.output and restarts the level on the result
+    private static final String EDITOR_OUTPUT = System.getProperty("pacman.editor.output", "mazes/edited.maze");
+    private static final Color EDITOR_DEAD_END_COLOR = new Color(170, 30, 30);
+    private static final Color EDITOR_UNREACHABLE_COLOR = new Color(70, 70, 70);
+    private static final int EDITOR_SCROLL_CELLS = 4;
+    private MazeEditor editor; // Null unless the editor is open
+    private boolean editorPaintsWalls; // Wall state the current mouse drag paints
+    private String editorMessage;
     private static final Color WALL_COLOR = new Color(20, 20, 150); // Darker blue for walls
     private static final Color DOT_COLOR = new Color(255, 255, 200); // Brighter yellow for pellets
     private static final Color POWER_PELLET_COLOR = new Color(255, 255, 255); // White for power pellets
@@ -34,14 +52,21 @@ public class GameBoard extends JPanel {
     private boolean pacmanImmune = false;
     private long immunityStartTime = 0;
     private static final long IMMUNITY_DURATION = 1500; // 1.5 seconds of immunity after respawn
-    private final int[][] powerPelletPositions = {
-        {1, 3},    // Top-left region
-        {26, 3},   // Top-right region
-        {1, 23},   // Bottom-left region
-        {26, 23}   // Bottom-right region
+    private static final Color[] GHOST_COLORS = {
+        new Color(200, 0, 0),      // Duller red
+        new Color(200, 150, 200),  // Duller pink
+        new Color(0, 200, 200),    // Duller cyan
+        new Color(200, 150, 50)    // Duller orange
     };
-    private java.util.Timer ghostTimer = new java.util.Timer();
-    private final boolean[] ghostCanLeave = new boolean[4]; // Tracks which ghosts can leave the spawn area
+
+    // Swarm mode: -Dpacman.ghosts=N plays with N ghosts (up to 10,000) cycling through the four personalities.
+    // Above PARALLEL_GHOSTS they move in parallel across the available cores, GHOST_CHUNK slots per task.
+    private static final int MAX_GHOSTS = 10000;
+    private static final int GHOST_COUNT = Math.max(1, Math.min(MAX_GHOSTS, Integer.getInteger("pacman.ghosts", 4)));
+    private static final int PARALLEL_GHOSTS = 256;
+    private static final int GHOST_CHUNK = 256;
+    private final GhostChunk[] ghostChunks; // Null below PARALLEL_GHOSTS
+    private static final long GHOST_RELEASE_SPREAD = 15000; // The last ghost leaves the house 15 seconds in
 
     // Image for regular pellets
     private BufferedImage dotImage;
@@ -52,20 +77,30 @@ public class GameBoard extends JPanel {
     private int fruitX, fruitY;
     private long fruitStartTime = 0;
     private static final long FRUIT_DURATION = 10000; // 10 seconds
+    private static final double FRUIT_SPAWNS_PER_SECOND = 0.01 * (1000.0 / 120); // 1% chance per 120 ms
 
     // Fruit notification variables
     private boolean showFruitNotification = false;
     private long fruitNotificationStartTime = 0;
     private static final long FRUIT_NOTIFICATION_DURATION = 2000; // 2 seconds
 
-    private PacmanGame.StatsPanel statsPanel;
-
     // Track high score across game restarts
     private int highScore = 0;
 
     // High score variables
     private boolean isNewHighScore = false;
     private int currentScoreRank = 0;
+    private double scorePercentile = -1; // Share of all recorded games this score beat, -1 until known
+
+    // Interactive boards keep scores, profiles and unfinished levels; headless ones (exports, benchmarks)
+    // play on private state and leave no trace in the player's files
+    private final boolean persistent;
+
+    // Per-game totals recorded in the player's profile at game over
+    private final String playerName = HighScoreManager.getPlayerName();
+    private int pelletsEatenThisGame = 0;
+    private final int[] deathsByGhost = new int[PlayerProfileStore.GHOST_TYPES];
+    private int playerBestScore = -1; // From the player's profile, -1 until known
     private List<Integer> highScores;
 
     // Track current level
@@ -76,53 +111,222 @@ public class GameBoard extends JPanel {
     private long levelTransitionStartTime = 0;
     private static final long LEVEL_TRANSITION_DURATION = 3000; // 3 seconds delay between levels 
 
+    // Number of simulation ticks run, for instrumentation
+    private long tickCount = 0;
+
+    // Game time: wall time for interactive boards, one tick's worth per tick for headless ones. P pauses, [ and ]
+    // halve and double the speed; ticks come faster or slower with it, so a tick is always 1/TICK_RATE s of game
+    // time. Pacman and the ghosts move in fractions of a cell per tick (see SubCell), so the tick rate
+    // (-Dpacman.tickRate, 60 by default) sets how smooth the motion is, not how fast it is.
+    public static final int TICK_RATE = Math.max(8, Math.min(240, Integer.getInteger("pacman.tickRate", 60)));
+    private static final int PELLET_FLUSH_TICKS = 12 * TICK_RATE; // Write eaten pellets back about every 12 seconds
+    private static final double MIN_SPEED = 0.25;
+    private static final double MAX_SPEED = 4.0;
+    private final GameClock clock;
+    private boolean pausedBeforeEditor;
+
+    // Game time read once at the start of each tick; every timer the tick checks compares against it
+    private long tickTime;
+
+    // Made once so the per-tick collision lookup does not allocate a lambda
+    private final java.util.function.IntConsumer ghostCollision = this::collideIfTouching;
+    private boolean pacmanDiedThisTick; // Stops the collision checks once a death has reset everyone
+
+    // Direction presses waiting for the next tick, with input-to-display latency tracking
+    private final InputQueue inputQueue = new InputQueue();
+
+    // On-screen performance HUD, toggled with F3
+    private final PerformanceOverlay performanceOverlay = new PerformanceOverlay(inputQueue);
+
+    // Pre-rendered wall tiles and the top-left of the visible area in maze pixels
+    private WallLayer wallLayer;
+    private int cameraX = 0;
+    private int cameraY = 0;
+
+    // Coalesces gameplay events within a tick and publishes them to the HUD and other listeners
+    private final GameEventBus eventBus = new GameEventBus();
+
+    // Span names for the timeline trace (-Dpacman.trace=<file>)
+    private static final int TRACE_TICK = TraceRecorder.register("tick");
+    private static final int TRACE_INPUT = TraceRecorder.register("input");
+    private static final int TRACE_PACMAN_MOVE = TraceRecorder.register("pacman-move");
+    private static final int TRACE_PICKUPS = TraceRecorder.register("pickups");
+    private static final int TRACE_COLLISIONS = TraceRecorder.register("collisions");
+    private static final int TRACE_GHOST_MOVEMENT = TraceRecorder.register("ghost-movement");
+    private static final int TRACE_TIMERS = TraceRecorder.register("timers");
+    private static final int TRACE_PAINT = TraceRecorder.register("paint");
+    private static final int TRACE_PAINT_MAZE = TraceRecorder.register("paint-maze");
+    private static final int TRACE_PAINT_SPRITES = TraceRecorder.register("paint-sprites");
+    private static final int TRACE_PAINT_HUD = TraceRecorder.register("paint-hud");
+    private static final int TRACE_GHOST_STATES = TraceRecorder.register("ghost-states");
+    private static final int TRACE_KEY_PRESS = TraceRecorder.register("key-press");
+
     // Sets the statistics panel for displaying game stats.
     public void setStatsPanel(PacmanGame.StatsPanel statsPanel) {
-        this.statsPanel = statsPanel;
-        updateStats(); // Initialize stats
+        eventBus.addListener(statsPanel);
+        eventBus.markDirty();
+        publishEvents(); // Initialize stats
     }
 
-    // Updates the statistics panel with current game values.
-    private void updateStats() {
-        if (statsPanel != null) {
-            statsPanel.updateStats(score, lives, currentLevel);
-        }
+    // Event bus that receives one coalesced snapshot per tick
+    public GameEventBus getEventBus() {
+        return eventBus;
+    }
+
+    // Publishes everything that changed since the last publish as a single snapshot.
+    private void publishEvents() {
+        eventBus.publish(score, lives, currentLevel);
     }
 
     public GameBoard() {
+        this(true);
+    }
+
+    // Creates a game board. Headless boards have no Swing timer; the caller steps and renders them directly,
+    // and their game time advances with the ticks.
+    public GameBoard(boolean interactive) {
+        this(interactive, interactive ? GameClock.wall() : GameClock.ticks(1_000_000_000L / TICK_RATE));
+    }
+
+    // Creates a game board whose timing runs on the given clock.
+    public GameBoard(boolean interactive, GameClock clock) {
+        this.clock = clock;
+        this.persistent = interactive;
         setBackground(BACKGROUND_COLOR);
         loadImages();
-        initializeMaze();
-        pacman = new Pacman(14, 23);
-        ghosts = new Ghost[4];
-        // Setup ghosts in the safe zone with appropriate colors (columns 11-17, rows 13-16)
-        ghosts[0] = new Ghost(11, 13, new Color(200, 0, 0));      // Duller red
-        ghosts[1] = new Ghost(16, 13, new Color(200, 150, 200));  // Duller pink
-        ghosts[2] = new Ghost(11, 15, new Color(0, 200, 200));    // Duller cyan
-        ghosts[3] = new Ghost(16, 15, new Color(200, 150, 50));   // Duller orange
-
-        // Adjust the game speed to a better pace - make it a bit faster
-        timer = new javax.swing.Timer(120, e -> { // Changed to 120ms for slightly faster gameplay
-            update();
-            repaint();
-        });
-        timer.start();
+        maze = GENERATE_MAZES ? generatedMaze(mazeSeed + currentLevel) : Maze.loadDefault();
+        powerPelletsActive = new boolean[maze.getPowerPelletCount()];
+        pellets = new PelletGrid(maze, persistent ? playerName : null);
+        wallLayer = new WallLayer(maze, CELL_SIZE, WALL_COLOR, BACKGROUND_COLOR);
+        setPreferredSize(getPreferredSize());
+        pacman = new Pacman(maze, TICK_RATE);
+        ghosts = new Ghost[GHOST_COUNT];
+        ghostStore = new GhostStore(GHOST_COUNT, maze, TICK_RATE, System.nanoTime());
+        // Setup ghosts on the maze's spawn cells inside the house, reusing spawns if it declares fewer
+        for (int i = 0; i < ghosts.length; i++) {
+            int spawn = i % maze.getGhostStartCount();
+            ghosts[i] = new Ghost(ghostStore, maze.getGhostStartX(spawn), maze.getGhostStartY(spawn),
+                GHOST_COLORS[i % GHOST_COLORS.length]);
+        }
+        if (GHOST_COUNT >= PARALLEL_GHOSTS) {
+            ghostChunks = new GhostChunk[(GHOST_COUNT + GHOST_CHUNK - 1) / GHOST_CHUNK];
+            for (int c = 0; c < ghostChunks.length; c++) {
+                ghostChunks[c] = new GhostChunk(c * GHOST_CHUNK, Math.min(GHOST_COUNT, (c + 1) * GHOST_CHUNK));
+            }
+        } else {
+            ghostChunks = null;
+        }
+
+        if (interactive) {
+            // One tick per 1/TICK_RATE s of game time; the speed of play is set by the sub-cell steps
+            timer = new javax.swing.Timer(tickDelay(), e -> {
+                update();
+                repaint();
+                // Nothing animates on the game over screen, so stop ticking until the player restarts
+                if (gameOver) {
+                    ((javax.swing.Timer) e.getSource()).stop();
+                }
+            });
+            timer.start();
+        } else {
+            timer = null;
+            // Size the panel up front so offscreen rendering has valid bounds
+            setSize(getPreferredSize());
+        }
+
+        // Mouse edits for the level editor; ignored while playing
+        java.awt.event.MouseAdapter editorMouse = new java.awt.event.MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (editor == null) return;
+                int x = (e.getX() + cameraX) / CELL_SIZE;
+                int y = (e.getY() + cameraY) / CELL_SIZE;
+                editorPaintsWalls = !editor.isWall(x, y);
+                editCell(x, y);
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (editor == null) return;
+                int x = (e.getX() + cameraX) / CELL_SIZE;
+                int y = (e.getY() + cameraY) / CELL_SIZE;
+                if (editor.isWall(x, y) != editorPaintsWalls) {
+                    editCell(x, y);
+                }
+            }
+        };
+        addMouseListener(editorMouse);
+        addMouseMotionListener(editorMouse);
 
         scheduleInitialGhostReleases();
         initGame();
+        GameMetrics.gamesStarted.increment();
+
+        // Warm the high score cache off the EDT so game over never waits on disk
+        if (persistent) {
+            HighScoreManager.preload();
+        }
     }
 
     // Sets the difficulty level for the game and applies it to all ghosts.
     public void setDifficulty(int difficulty) {
         // Apply difficulty to all ghosts
-        for (Ghost ghost : ghosts) {
-            ghost.setDifficulty(difficulty);
-            // Make sure each ghost has a reference to Pacman for tracking
-            ghost.setPacman(pacman);
-        }
+        ghostStore.setDifficulty(difficulty);
+        // Make sure the ghosts have a reference to Pacman for tracking
+        ghostStore.setPacman(pacman);
         
         // Set consistent game speed across all difficulties
-        timer.setDelay(120); // Use a consistent speed for all difficulty levels
+        if (timer != null) {
+            timer.setDelay(tickDelay()); // Use a consistent speed for all difficulty levels
+        }
+    }
+
+    // Sets how fast game time runs: below 1 is slow motion, above 1 is time warp. An interactive board ticks
+    // faster or slower to match.
+    public void setSpeed(double speed) {
+        clock.setSpeed(Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed)));
+        if (timer != null) {
+            timer.setDelay(tickDelay());
+        }
+        repaint();
+    }
+
+    // Freezes or resumes the game: no ticks run and no timer expires while paused. The Swing timer stops too,
+    // so a paused game is painted once rather than at the tick rate.
+    public void setPaused(boolean paused) {
+        clock.setPaused(paused);
+        if (timer != null) {
+            if (paused) {
+                timer.stop();
+            } else if (editor == null && !gameOver) {
+                timer.start();
+            }
+        }
+        repaint();
+    }
+
+    public boolean isPaused() {
+        return clock.isPaused();
+    }
+
+    // Real milliseconds between ticks at the current speed
+    private int tickDelay() {
+        return Math.max(1, (int) Math.round(1000.0 / TICK_RATE / clock.getSpeed()));
+    }
+
+    // Advances the simulation by one tick without painting (used by headless drivers).
+    public void step() {
+        update();
+    }
+
+    // Paints the current frame into an offscreen graphics context.
+    public void renderFrame(Graphics2D g2d) {
+        paintComponent(g2d);
+    }
+
+    // True once the player has run out of lives.
+    public boolean isGameOver() {
+        return gameOver;
     }
 
     // Loads game images from the file system.
@@ -143,163 +347,99 @@ public class GameBoard extends JPanel {
         }
     }
 
-    // Schedules the initial release of ghosts from their spawn area.
+    // Puts every ghost back in the house and schedules its release from the spawn area, and restarts the
+    // scatter/chase schedule; the releases are tick countdowns in the ghost store.
     private void scheduleInitialGhostReleases() {
+        ghostStore.restartModes();
         for (int i = 0; i < ghosts.length; i++) {
-            final int ghostIndex = i;
-            ghostTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    ghostCanLeave[ghostIndex] = true;
-                    // Immediately move ghost outside the safe zone
-                    moveGhostOutOfSafeZone(ghosts[ghostIndex]);
-                }
-            }, i * 5000); // Release each ghost at 5-second intervals
-        }
-    }
-    
-    // Helper method to move ghosts directly out of the safe zone.
-    private void moveGhostOutOfSafeZone(Ghost ghost) {
-        // Move ghost to row 11 (above the ghost box), column 14
-        ghost.setPosition(14, 11); // Adjusted from row 12 to row 11
-        try {
-            java.lang.reflect.Method method = Ghost.class.getDeclaredMethod("setRandomDirection");
-            method.setAccessible(true);
-            method.invoke(ghost); // Call the private method using reflection
-        } catch (NoSuchMethodException | IllegalAccessException | java.lang.reflect.InvocationTargetException e) {
-            System.err.println("Error setting random direction for ghost: " + e.getMessage());
+            // Four ghosts leave at 5-second intervals
+            ghostStore.holdInHouse(i, i * GHOST_RELEASE_SPREAD / Math.max(1, ghosts.length - 1));
         }
     }
 
-    // Schedules a ghost to respawn after being eaten by Pacman.
-    private void scheduleGhostRespawn(int ghostIndex) {
-        ghostCanLeave[ghostIndex] = false; // Prevent the ghost from leaving immediately
-        ghostTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                ghostCanLeave[ghostIndex] = true; // Allow the ghost to leave after 5 seconds
-                // Immediately move ghost outside the safe zone
-                moveGhostOutOfSafeZone(ghosts[ghostIndex]);
-            }
-        }, 5000); // 5-second delay for respawn
-    }
-
-    // Initializes the maze layout with wall and path definitions.
-    private void initializeMaze() {
-        maze = new int[][] {
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,1,1,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,0,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,0,1},
-            {1,0,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,0,1},
-            {1,0,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,0,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,0,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,0,1},
-            {1,0,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,0,1},
-            {1,0,0,0,0,0,0,1,1,0,0,0,0,1,1,0,0,0,0,1,1,0,0,0,0,0,0,1},
-            {1,1,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,0,0,0,0,0,0,0,0,0,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,1,1,1,0,0,1,1,1,0,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,1,0,0,0,0,0,0,1,0,1,1,0,1,1,1,1,1,1},
-            {0,0,0,0,0,0,0,0,0,0,1,0,0,0,0,0,0,1,0,0,0,0,0,0,0,0,0,0},
-            {1,1,1,1,1,1,0,1,1,0,1,0,0,0,0,0,0,1,0,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,0,0,0,0,0,0,0,0,0,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1},
-            {1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,1,1,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,0,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,0,1},
-            {1,0,1,1,1,1,0,1,1,1,1,1,0,1,1,0,1,1,1,1,1,0,1,1,1,1,0,1},
-            {1,0,0,0,1,1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1,1,0,0,0,1},
-            {1,1,1,0,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,0,1,1,1},
-            {1,1,1,0,1,1,0,1,1,0,1,1,1,1,1,1,1,1,0,1,1,0,1,1,0,1,1,1},
-            {1,0,0,0,0,0,0,1,1,0,0,0,0,1,1,0,0,0,0,1,1,0,0,0,0,0,0,1},
-            {1,0,1,1,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,1,1,0,1},
-            {1,0,1,1,1,1,1,1,1,1,1,1,0,1,1,0,1,1,1,1,1,1,1,1,1,1,0,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-        };
-        setPreferredSize(new Dimension(MAZE_WIDTH * CELL_SIZE, MAZE_HEIGHT * CELL_SIZE));
-    }
-
     // Initializes the game state including pellets and power pellets.
     public void initGame() {
-        pellets = new boolean[maze.length][maze[0].length];
-        pelletsRemaining = 0;
-
-        // Define the correct safe zone for ghost spawn (columns 11-17, rows 13-16)
-        int ghostBoxMinRow = 12;
-        int ghostBoxMaxRow = 16;
-        int ghostBoxMinCol = 11;
-        int ghostBoxMaxCol = 17;
-
-        for (int y = 0; y < maze.length; y++) {
-            for (int x = 0; x < maze[0].length; x++) {
-                if (maze[y][x] == 0) { // Check if it's a path
-                    // Check if the current position is inside the ghost safe zone
-                    boolean isGhostSpawnArea = (x >= ghostBoxMinCol && x <= ghostBoxMaxCol && 
-                                                y >= ghostBoxMinRow && y <= ghostBoxMaxRow);
-
-                    if (!isGhostSpawnArea) {
-                        pellets[y][x] = true;
-                        pelletsRemaining++;
-                    } else {
-                        pellets[y][x] = false; // No pellets in the ghost spawn area
-                    }
-                }
-            }
-        }
-
-        for (int i = 0; i < powerPelletsActive.length; i++) {
-            powerPelletsActive[i] = true;
-            int x = powerPelletPositions[i][0];
-            int y = powerPelletPositions[i][1];
-            
-            // Ensure power pellets are not placed in the safe zone
-            boolean isPowerPelletInGhostBox = (x >= ghostBoxMinCol && x <= ghostBoxMaxCol && 
-                                               y >= ghostBoxMinRow && y <= ghostBoxMaxRow);
-
-            if (isPowerPelletInGhostBox) {
-                powerPelletsActive[i] = false;
-            } else if (x >= 0 && x < maze[0].length && y >= 0 && y < maze.length) {
-                if (pellets[y][x]) {
-                    pellets[y][x] = false;
-                    pelletsRemaining--;
-                }
-            }
-        }
-
         lives = 3;
         gameOver = false;
+
+        refillPellets();
     }
 
     @Override
     public Dimension getPreferredSize() {
-        return new Dimension(MAZE_WIDTH * CELL_SIZE, MAZE_HEIGHT * CELL_SIZE);
+        return new Dimension(Math.min(maze.getWidth(), VIEWPORT_COLUMNS) * CELL_SIZE,
+            Math.min(maze.getHeight(), VIEWPORT_ROWS) * CELL_SIZE);
     }
 
     // Sets the score label reference for UI updates.
     public void setScoreLabel(JLabel label) {
         this.scoreLabel = label;
-        updateScore(score);
+        eventBus.addListener(snapshot ->
+            scoreLabel.setText("Score: " + snapshot.getScore() + " | Lives: " + snapshot.getLives()));
+        eventBus.markDirty();
+        publishEvents();
     }
 
     // Updates the player's score and refreshes the UI.
     public void updateScore(int points) {
         score += points;
-        updateScoreLabel();
-        updateStats();
+        eventBus.markDirty();
+        publishEvents();
     }
 
-    // Updates the score label text with current score and lives.
-    private void updateScoreLabel() {
-        if (scoreLabel != null) {
-            scoreLabel.setText("Score: " + score + " | Lives: " + lives);
+    // Queues a key press stamped with System.nanoTime(). Direction keys are applied at the next tick
+    // boundary; other keys take effect immediately.
+    public void queueKeyPress(int keyCode, long timeNanos) {
+        long traceStart = TraceRecorder.begin();
+        if (editor != null) {
+            // The game is paused while editing, so every key goes straight to the editor
+            handleEditorKey(keyCode);
+        } else {
+            switch (keyCode) {
+                case KeyEvent.VK_UP -> inputQueue.push(0, -1, timeNanos);
+                case KeyEvent.VK_DOWN -> inputQueue.push(0, 1, timeNanos);
+                case KeyEvent.VK_LEFT -> inputQueue.push(-1, 0, timeNanos);
+                case KeyEvent.VK_RIGHT -> inputQueue.push(1, 0, timeNanos);
+                default -> handleKeyPress(keyCode);
+            }
         }
+        TraceRecorder.end(TRACE_KEY_PRESS, traceStart);
+    }
+
+    // Input queue holding pending presses and input latency statistics
+    public InputQueue getInputQueue() {
+        return inputQueue;
+    }
+
+    // Applies the most relevant queued press at the start of a tick: the oldest press Pacman can act on
+    // right now. Presses before it are superseded, presses after it stay queued for the following ticks.
+    // If no press can be taken yet, the newest one becomes Pacman's buffered direction.
+    private void applyQueuedInput() {
+        inputQueue.dropStale(System.nanoTime());
+        if (inputQueue.isEmpty()) return;
+
+        for (int i = 0; i < inputQueue.size(); i++) {
+            int dx = inputQueue.getDirectionX(i);
+            int dy = inputQueue.getDirectionY(i);
+            if (pacman.canMove(dx, dy)) {
+                pacman.setDirection(dx, dy);
+                inputQueue.markApplied(inputQueue.getPressTime(i));
+                inputQueue.removeFirst(i + 1);
+                return;
+            }
+        }
+
+        int newest = inputQueue.size() - 1;
+        pacman.setDirection(inputQueue.getDirectionX(newest), inputQueue.getDirectionY(newest));
+        inputQueue.clear();
     }
 
     // Handles keyboard input for controlling Pacman and game actions.
     public void handleKeyPress(int keyCode) {
+        if (editor != null) {
+            handleEditorKey(keyCode);
+            return;
+        }
         switch (keyCode) {
             case KeyEvent.VK_UP -> pacman.setDirection(0, -1);
             case KeyEvent.VK_DOWN -> pacman.setDirection(0, 1);
@@ -310,9 +450,88 @@ public class GameBoard extends JPanel {
                     restartGame();
                 }
             }
+            case KeyEvent.VK_P -> setPaused(!clock.isPaused());
+            case KeyEvent.VK_OPEN_BRACKET -> setSpeed(clock.getSpeed() / 2);
+            case KeyEvent.VK_CLOSE_BRACKET -> setSpeed(clock.getSpeed() * 2);
+            case KeyEvent.VK_F2 -> openEditor();
+            case KeyEvent.VK_F3 -> {
+                performanceOverlay.toggle();
+                repaint();
+            }
+            case KeyEvent.VK_F9 -> {
+                // Write the timeline trace so far without quitting (only when tracing is enabled)
+                if (TraceRecorder.ENABLED) {
+                    new Thread(() -> TraceRecorder.export(TraceRecorder.TRACE_FILE), "trace-export").start();
+                }
+            }
         }
     }
     
+    // Keys while the editor is open: arrows scroll, F2 applies the edits, Escape throws them away.
+    private void handleEditorKey(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_UP -> scrollEditor(0, -EDITOR_SCROLL_CELLS);
+            case KeyEvent.VK_DOWN -> scrollEditor(0, EDITOR_SCROLL_CELLS);
+            case KeyEvent.VK_LEFT -> scrollEditor(-EDITOR_SCROLL_CELLS, 0);
+            case KeyEvent.VK_RIGHT -> scrollEditor(EDITOR_SCROLL_CELLS, 0);
+            case KeyEvent.VK_F2 -> closeEditor(true);
+            case KeyEvent.VK_ESCAPE -> closeEditor(false);
+        }
+    }
+
+    // Pauses the game and opens the editor on the current maze.
+    private void openEditor() {
+        if (gameOver || inLevelTransition) return;
+        editor = new MazeEditor(maze);
+        editorMessage = null;
+        if (timer != null) timer.stop();
+        pausedBeforeEditor = clock.isPaused();
+        clock.setPaused(true);
+        repaint();
+    }
+
+    // Leaves the editor, saving the edits and restarting the level on them if asked to. Layouts Pacman could
+    // not finish are refused and the editor stays open.
+    private void closeEditor(boolean apply) {
+        if (apply && editor.isModified()) {
+            String problem = editor.getProblem();
+            if (problem != null) {
+                editorMessage = "Cannot apply: " + problem;
+                repaint();
+                return;
+            }
+            try {
+                java.nio.file.Path output = java.nio.file.Paths.get(EDITOR_OUTPUT);
+                java.nio.file.Files.writeString(output, editor.toMazeText());
+                switchMaze(Maze.load(output.toString()));
+            } catch (IOException e) {
+                editorMessage = "Cannot save: " + e.getMessage();
+                repaint();
+                return;
+            }
+            // Same resets as a new level, on the edited maze; outside a tick, so read the clock first
+            tickTime = clock.now();
+            startNextLevel();
+        }
+        editor = null;
+        setPaused(pausedBeforeEditor);
+    }
+
+    private void editCell(int x, int y) {
+        if (editor.toggle(x, y)) {
+            editorMessage = null;
+            repaint();
+        }
+    }
+
+    private void scrollEditor(int dx, int dy) {
+        int maxX = Math.max(0, maze.getWidth() * CELL_SIZE - getWidth());
+        int maxY = Math.max(0, maze.getHeight() * CELL_SIZE - getHeight());
+        cameraX = Math.max(0, Math.min(maxX, cameraX + dx * CELL_SIZE));
+        cameraY = Math.max(0, Math.min(maxY, cameraY + dy * CELL_SIZE));
+        repaint();
+    }
+
     // Restarts the game to its initial state.
     private void restartGame() {
         // Reset game variables
@@ -322,18 +541,12 @@ public class GameBoard extends JPanel {
         gameOver = false;
         inLevelTransition = false;
         isNewHighScore = false;
+        pelletsEatenThisGame = 0;
+        Arrays.fill(deathsByGhost, 0);
         
-        // Cancel any existing ghost timer tasks
-        ghostTimer.cancel();
-        ghostTimer = new java.util.Timer();
-        
-        // Reset ghost leave flags
-        for (int i = 0; i < ghostCanLeave.length; i++) {
-            ghostCanLeave[i] = false;
-        }
-        
-        // Reset Pacman to starting position
+        // Reset Pacman to starting position and drop any presses from the previous game
         pacman.reset();
+        inputQueue.clear();
         
         // Reset all ghosts to their starting positions
         for (Ghost ghost : ghosts) {
@@ -354,82 +567,103 @@ public class GameBoard extends JPanel {
         initGame();
         
         // Update UI
-        updateScoreLabel();
-        updateStats();
+        eventBus.post(GameEventBus.Type.GAME_STARTED);
+        GameMetrics.gamesStarted.increment();
         
         // Schedule ghost releases
         scheduleInitialGhostReleases();
         
-        // Set brief immunity period for Pacman
+        // Set brief immunity period for Pacman, reading the clock here since this is outside a tick
+        tickTime = clock.now();
         pacmanImmune = true;
-        immunityStartTime = System.currentTimeMillis();
+        immunityStartTime = tickTime;
+
+        // Restart happens outside a tick, so publish right away
+        publishEvents();
+
+        // Resume ticking unless paused; the timer goes idle while the game over screen is shown
+        if (timer != null && !timer.isRunning() && !clock.isPaused()) {
+            timer.start();
+        }
+        repaint();
     }
 
-    //  Main collision detection system for the game.
-    private void checkCollisions() {
+    // Collects whatever is on the cell Pacman is at: pellets, power pellets and fruit.
+    private void checkPickups() {
         int pacmanX = pacman.getX();
         int pacmanY = pacman.getY();
 
         // Check for pellet collection
-        if (pacmanX >= 0 && pacmanX < maze[0].length && pacmanY >= 0 && pacmanY < maze.length) {
-            if (pellets[pacmanY][pacmanX]) {
-                pellets[pacmanY][pacmanX] = false;
-                pelletsRemaining--;
-                score += 10;
-                updateScoreLabel();
-                updateStats();
-
-                if (pelletsRemaining <= 0) {
-                    gameWon();
-                }
+        if (pellets.eat(pacmanX, pacmanY)) {
+            score += 10;
+            pelletsEatenThisGame++;
+            eventBus.post(GameEventBus.Type.PELLET_EATEN);
+
+            if (pellets.getRemaining() <= 0) {
+                gameWon();
             }
         }
 
         // Check for power pellet collection
         for (int i = 0; i < powerPelletsActive.length; i++) {
-            int ppX = powerPelletPositions[i][0];
-            int ppY = powerPelletPositions[i][1];
+            int ppX = maze.getPowerPelletX(i);
+            int ppY = maze.getPowerPelletY(i);
 
             if (powerPelletsActive[i] && pacmanX == ppX && pacmanY == ppY) {
                 powerPelletsActive[i] = false;
                 activatePowerPellet();
                 score += 50;
-                updateScoreLabel();
-                updateStats();
+                GameFlightEvents.gameplay("POWER_PELLET", score, currentLevel, lives, -1);
+                pelletsEatenThisGame++;
+                eventBus.post(GameEventBus.Type.POWER_PELLET_EATEN);
             }
         }
 
         // Check for fruit collision
         checkFruitCollision();
+    }
 
-        // Improved collision detection with ghosts
-        // Check for ghost collisions with more precise detection
-        for (Ghost ghost : ghosts) {
-            if (pacmanX == ghost.getX() && pacmanY == ghost.getY()) {
-                handleGhostCollision(ghost);
-            }
-            // Optional: Add a small tolerance for near-misses to improve collision detection
-            else if (Math.abs(pacmanX - ghost.getX()) <= 0.5 && Math.abs(pacmanY - ghost.getY()) <= 0.5) {
-                handleGhostCollision(ghost);
+    // Collides Pacman with every ghost whose path this tick came within touching distance of his. Both moved
+    // at most a cell, so only the ghosts indexed on cells a few steps around his can have touched him.
+    private void checkCollisions() {
+        int pacmanX = pacman.getX();
+        int pacmanY = pacman.getY();
+        int reach = 2 + (pacman.getStep() + ghostStore.getMaxStep() + SubCell.ONE - 1) / SubCell.ONE;
+        pacmanDiedThisTick = false;
+        ghostStore.indexPositions();
+        for (int y = pacmanY - reach; y <= pacmanY + reach; y++) {
+            for (int x = pacmanX - reach; x <= pacmanX + reach; x++) {
+                if (pacmanDiedThisTick) return;
+                ghostStore.forEachAt(maze.wrapX(x, y), y, ghostCollision);
             }
         }
     }
 
+    // Collides Pacman with the ghost if their paths over the last tick touched.
+    private void collideIfTouching(int ghostIndex) {
+        if (pacmanDiedThisTick) return; // A death reset the others mid-loop
+        if (SubCell.sweptTouch(pacman.getFromX(), pacman.getFromY(), pacman.getFixedX(), pacman.getFixedY(),
+                ghostStore.getFromX(ghostIndex), ghostStore.getFromY(ghostIndex),
+                ghostStore.getFixedX(ghostIndex), ghostStore.getFixedY(ghostIndex), maze.getWidth())) {
+            handleGhostCollision(ghostIndex);
+        }
+    }
+
     // Handles collision between Pacman and a ghost.
-    private void handleGhostCollision(Ghost ghost) {
-        if (pacmanImmune) return;
+    private void handleGhostCollision(int ghostIndex) {
+        if (pacmanImmune || ghostStore.isEaten(ghostIndex)) return;
 
+        Ghost ghost = ghosts[ghostIndex];
         if (ghost.isVulnerable()) {
-            int ghostIndex = getGhostIndex(ghost);
-            ghost.reset();
-            scheduleGhostRespawn(ghostIndex); // Schedule respawn delay for the ghost
+            ghostStore.eat(ghostIndex); // Its eyes go back to the house, where it waits before coming out again
             score += 200;
-            updateScoreLabel();
-            updateStats();
+            eventBus.post(GameEventBus.Type.GHOST_EATEN);
         } else {
             lives--;
-            updateScoreLabel();
-            updateStats();
+            pacmanDiedThisTick = true;
+            deathsByGhost[ghost.getPersonality()]++;
+            eventBus.post(GameEventBus.Type.PACMAN_DIED);
+            GameFlightEvents.gameplay("DEATH", score, currentLevel, lives, ghost.getPersonality());
 
             if (lives <= 0) {
                 gameOver();
@@ -439,33 +673,17 @@ public class GameBoard extends JPanel {
         }
     }
 
-    // Finds the array index of a specific ghost.
-    private int getGhostIndex(Ghost ghost) {
-        for (int i = 0; i < ghosts.length; i++) {
-            if (ghosts[i] == ghost) {
-                return i;
-            }
-        }
-        return -1; // Should never happen
-    }
-
     // Resets game state after Pacman dies.
     private void resetAfterDeath() {
         pacman.reset();
         pacmanImmune = true;
-        immunityStartTime = System.currentTimeMillis();
+        immunityStartTime = tickTime;
 
         // Reset all ghosts to their starting positions
-        for (int i = 0; i < ghosts.length; i++) {
-            ghosts[i].reset();
-            ghostCanLeave[i] = false; // Make sure no ghost can leave initially
+        for (Ghost ghost : ghosts) {
+            ghost.reset();
         }
 
-        // Cancel any existing ghost timer tasks
-        ghostTimer.cancel();
-        // Create a new ghost timer
-        ghostTimer = new java.util.Timer();
-        
         // Schedule ghosts to be released at 5-second intervals, just like at the start
         scheduleInitialGhostReleases();
     }
@@ -473,51 +691,93 @@ public class GameBoard extends JPanel {
     // Activates the power pellet effect.
     private void activatePowerPellet() {
         // Record the exact time when the power pellet is activated
-        powerPelletStartTime = System.currentTimeMillis();
+        powerPelletStartTime = tickTime;
         
         // Make all ghosts vulnerable
-        for (Ghost ghost : ghosts) {
-            ghost.setVulnerable(true); // Ghosts become eatable
+        for (int i = 0; i < ghosts.length; i++) {
+            ghostStore.setVulnerable(i, true); // Ghosts become eatable
         }
     }
 
     // Deactivates the power pellet effect.
     private void deactivatePowerPellet() {
         // Reset all ghosts to their normal state
-        for (Ghost ghost : ghosts) {
-            ghost.setVulnerable(false); // Ghosts return to their usual state
+        for (int i = 0; i < ghosts.length; i++) {
+            ghostStore.setVulnerable(i, false); // Ghosts return to their usual state
         }
         // Reset the power pellet timer
         powerPelletStartTime = 0;
     }
 
-    // Checks if the power pellet effect is currently active.
-    private boolean isPowerPelletActive() {
+    // Checks if the power pellet effect is active at the given game time (the tick's time during a tick).
+    private boolean isPowerPelletActive(long now) {
         // Check if the power pellet effect is still active
         return (powerPelletStartTime > 0) && 
-               (System.currentTimeMillis() - powerPelletStartTime < POWER_PELLET_DURATION);
+               (now - powerPelletStartTime < POWER_PELLET_DURATION);
     }
 
     // Handles game over state. Updates high scores and prepares game over screen.
     private void gameOver() {
         gameOver = true;
+        pellets.discardSavedLevel();
+        eventBus.post(GameEventBus.Type.GAME_OVER);
+        GameMetrics.gamesFinished.increment();
+        GameMetrics.scores.record(score);
+
+        // Pending ghost releases stay pending: no tick runs until the restart, which reschedules them
+
         // Keep track of the high score
         if (score > highScore) {
             highScore = score;
         }
         
-        // Save high score to file and check ranking
+        // A headless run only shows its own score; it must not touch the player's tables
+        if (!persistent) {
+            isNewHighScore = false;
+            highScores = Collections.singletonList(score);
+            currentScoreRank = 1;
+            return;
+        }
+
+        // Record the score and check ranking (answered from the in-memory cache; the file is written in the background)
         isNewHighScore = HighScoreManager.addHighScore(score);
         highScores = HighScoreManager.loadHighScores();
         currentScoreRank = HighScoreManager.getScoreRank(score);
+
+        // The full leaderboard is behind a file lock, so the writer counts this game and answers later
+        scorePercentile = -1;
+        HighScoreManager.requestPercentile(score, percentile -> {
+            if (!gameOver) return; // Restarted before the answer came
+            scorePercentile = percentile;
+            repaint();
+        });
+
+        // Update the player's profile, then read it back with this game in it
+        HighScoreManager.recordGame(playerName, score, pelletsEatenThisGame, deathsByGhost, currentLevel);
+        playerBestScore = -1;
+        int finalScore = score;
+        HighScoreManager.requestProfile(playerName, profile -> {
+            if (!gameOver) return; // Restarted before the answer came
+            playerBestScore = profile == null ? finalScore : profile.getBestScore();
+            repaint();
+        });
     }
 
     // Handles level completion.
     private void gameWon() {
         // Start level transition instead of immediately advancing to next level
         currentLevel++;
+        eventBus.post(GameEventBus.Type.LEVEL_CLEARED);
+        GameFlightEvents.gameplay("LEVEL_CLEAR", score, currentLevel - 1, lives, -1);
         inLevelTransition = true;
-        levelTransitionStartTime = System.currentTimeMillis();
+        levelTransitionStartTime = tickTime;
+        pellets.flush();
+
+        // Build the next maze in the background while the transition plays
+        if (GENERATE_MAZES) {
+            long seed = mazeSeed + currentLevel;
+            nextMaze = java.util.concurrent.CompletableFuture.supplyAsync(() -> generatedMaze(seed));
+        }
         // Don't stop the timer - just let it continue running during transition
     }
     
@@ -525,10 +785,16 @@ public class GameBoard extends JPanel {
     private void startNextLevel() {
         // Reset the transition flag
         inLevelTransition = false;
-        
-        // Cancel any existing ghost timer tasks
-        ghostTimer.cancel();
-        ghostTimer = new java.util.Timer();
+
+        // Move to the maze generated during the transition, or stay on this one if generation failed
+        if (nextMaze != null) {
+            try {
+                switchMaze(nextMaze.join());
+            } catch (java.util.concurrent.CompletionException e) {
+                System.err.println("Error generating maze: " + e.getCause().getMessage());
+            }
+            nextMaze = null;
+        }
         
         // Reset positions of Pacman and ghosts
         pacman.reset();
@@ -536,22 +802,12 @@ public class GameBoard extends JPanel {
             ghost.reset();
         }
         
-        // Reset ghost leave flags
-        for (int i = 0; i < ghostCanLeave.length; i++) {
-            ghostCanLeave[i] = false;
-        }
-        
-        // Refill the maze with pellets
+        // Refill the maze with pellets and power pellets
         resetMazeForLevel();
         
-        // Reset power pellets
-        for (int i = 0; i < powerPelletsActive.length; i++) {
-            powerPelletsActive[i] = true;
-        }
-        
         // Make Pacman immune briefly at the start of the level
         pacmanImmune = true;
-        immunityStartTime = System.currentTimeMillis();
+        immunityStartTime = tickTime;
         
         // Schedule ghost releases
         scheduleInitialGhostReleases();
@@ -559,60 +815,92 @@ public class GameBoard extends JPanel {
         // No need to restart the timer since we never stopped it
     }
 
+    // Replaces the maze and everything built from it; the caller refills the pellets.
+    private void switchMaze(Maze next) {
+        pellets.close();
+        maze.close();
+        maze = next;
+        powerPelletsActive = new boolean[maze.getPowerPelletCount()];
+        pellets = new PelletGrid(maze, persistent ? playerName : null);
+        wallLayer = new WallLayer(maze, CELL_SIZE, WALL_COLOR, BACKGROUND_COLOR);
+        pacman.setMaze(maze);
+        ghostStore.setMaze(maze);
+        for (int i = 0; i < ghosts.length; i++) {
+            int spawn = i % maze.getGhostStartCount();
+            ghostStore.setStart(i, maze.getGhostStartX(spawn), maze.getGhostStartY(spawn));
+            ghostStore.reset(i);
+        }
+    }
+
+    // Generates and loads the maze for a seed.
+    private static Maze generatedMaze(long seed) {
+        try {
+            return MazeGenerator.generateMaze(seed);
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
     private void resetMazeForLevel() {
-        // Reset pellets
-        pellets = new boolean[maze.length][maze[0].length];
-        pelletsRemaining = 0;
-        
-        // Define ghost spawn area
-        int ghostBoxMinRow = 12;
-        int ghostBoxMaxRow = 16;
-        int ghostBoxMinCol = 11;
-        int ghostBoxMaxCol = 17;
-        
-        // Place pellets in all valid locations
-        for (int y = 0; y < maze.length; y++) {
-            for (int x = 0; x < maze[0].length; x++) {
-                if (maze[y][x] == 0) { 
-                    // Check if in ghost spawn area
-                    boolean isGhostSpawnArea = (x >= ghostBoxMinCol && x <= ghostBoxMaxCol && 
-                                                y >= ghostBoxMinRow && y <= ghostBoxMaxRow);
-                    
-                    if (!isGhostSpawnArea) {
-                        pellets[y][x] = true;
-                        pelletsRemaining++;
-                    } else {
-                        pellets[y][x] = false;
-                    }
-                }
-            }
+        refillPellets();
+    }
+
+    // Copies the maze's pellet template into the board and reactivates every power pellet outside the house,
+    // or picks up a level left unfinished by the last run with its score, lives, level and power pellets.
+    private void refillPellets() {
+        if (pellets.resumeSavedLevel()) {
+            score = pellets.getSavedScore();
+            lives = Math.max(1, pellets.getSavedLives());
+            currentLevel = Math.max(1, pellets.getSavedLevel());
+            pellets.restorePowerPellets(powerPelletsActive);
+            eventBus.markDirty();
+            return;
         }
-        
-        // Place power pellets and remove regular pellets at those positions
-        for (int i = 0; i < powerPelletPositions.length; i++) {
-            int x = powerPelletPositions[i][0];
-            int y = powerPelletPositions[i][1];
-            
-            boolean isPowerPelletInGhostBox = (x >= ghostBoxMinCol && x <= ghostBoxMaxCol && 
-                                             y >= ghostBoxMinRow && y <= ghostBoxMaxRow);
-                                             
-            if (isPowerPelletInGhostBox) {
-                powerPelletsActive[i] = false;
-            } else if (x >= 0 && x < maze[0].length && y >= 0 && y < maze.length) {
-                if (pellets[y][x]) {
-                    pellets[y][x] = false;
-                    pelletsRemaining--;
-                }
-            }
+        pellets.refill();
+
+        for (int i = 0; i < powerPelletsActive.length; i++) {
+            powerPelletsActive[i] = !maze.isInHouse(maze.getPowerPelletX(i), maze.getPowerPelletY(i));
         }
     }
 
+    // Advances the ghosts' lifecycle countdowns, then moves every ghost out of the house. The directions are
+    // planned in parallel for swarms; the cells are claimed in ghost order on this thread, so two ghosts never
+    // head for the same cell and the outcome does not depend on thread timing, and then every ghost covers its
+    // step.
     private void updateGhostMovements() {
-        for (int i = 0; i < ghosts.length; i++) {
-            if (ghostCanLeave[i]) {
-                // Call the correct method with the appropriate number of parameters
-                ghosts[i].move(maze);
+        long traceStart = TraceRecorder.begin();
+        ghostStore.updateStates();
+        TraceRecorder.end(TRACE_GHOST_STATES, traceStart);
+        ghostStore.indexPositions();
+        if (ghostChunks != null) {
+            for (GhostChunk chunk : ghostChunks) {
+                chunk.reinitialize();
             }
+            java.util.concurrent.ForkJoinTask.invokeAll(ghostChunks);
+        } else {
+            ghostStore.planMoves(0, ghosts.length);
+        }
+        ghostStore.claimMoves();
+        ghostStore.advance();
+        ghostStore.prefetchMoved();
+    }
+
+    // A slice of the ghost slots whose moves are planned on the common pool. The slices are made once and
+    // reinitialized every tick, so spreading a swarm across the cores allocates nothing per tick.
+    private final class GhostChunk extends java.util.concurrent.RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        GhostChunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            ghostStore.planMoves(from, to);
         }
     }
 
@@ -623,45 +911,60 @@ public class GameBoard extends JPanel {
         int maxAttempts = 100;
         
         while (attempts < maxAttempts) {
-            int x = (int)(Math.random() * MAZE_WIDTH);
-            int y = (int)(Math.random() * MAZE_HEIGHT);
+            int x = (int)(Math.random() * maze.getWidth());
+            int y = (int)(Math.random() * maze.getHeight());
             
             // Check if position is valid (not a wall and not in ghost spawn area)
-            if (maze[y][x] == 0 && !isInGhostSpawnArea(x, y)) {
+            if (!maze.isWall(x, y) && !maze.isInHouse(x, y)) {
                 fruitX = x;
                 fruitY = y;
                 fruitActive = true;
-                fruitStartTime = System.currentTimeMillis();
+                fruitStartTime = tickTime;
                 break;
             }
             attempts++;
         }
     }
 
-    // Checks if the given coordinates are within the ghost spawn area.
-    private boolean isInGhostSpawnArea(int x, int y) {
-        return (x >= 11 && x <= 17 && y >= 12 && y <= 16);
-    }
-
     // Checks for collision between Pacman and the fruit.
     private void checkFruitCollision() {
         if (fruitActive && pacman.getX() == fruitX && pacman.getY() == fruitY) {
             fruitActive = false;
             score += 100; // Bonus points for fruit
-            updateScoreLabel();
-            updateStats();
+            eventBus.post(GameEventBus.Type.FRUIT_EATEN);
             
             // Trigger fruit notification
             showFruitNotification = true;
-            fruitNotificationStartTime = System.currentTimeMillis();
+            fruitNotificationStartTime = tickTime;
         }
     }
 
+    // Runs one simulation tick and publishes the coalesced events at its end; nothing happens while paused.
     private void update() {
+        if (clock.isPaused()) return;
+        clock.tick();
+        long tickStart = System.nanoTime();
+        long traceStart = TraceRecorder.begin();
+        tickCount++;
+        updateSimulation();
+        pellets.saveProgress(score, lives, currentLevel, powerPelletsActive);
+        if (tickCount % PELLET_FLUSH_TICKS == 0) {
+            pellets.flush();
+        }
+        publishEvents();
+        long tickNanos = System.nanoTime() - tickStart;
+        performanceOverlay.recordTick(tickNanos);
+        GameMetrics.ticks.increment();
+        GameMetrics.tickDurations.record(tickNanos);
+        TraceRecorder.end(TRACE_TICK, traceStart);
+    }
+
+    private void updateSimulation() {
+        tickTime = clock.now();
+
         // Check if we're in level transition and it's time to start the next level
         if (inLevelTransition) {
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - levelTransitionStartTime >= LEVEL_TRANSITION_DURATION) {
+            if (tickTime - levelTransitionStartTime >= LEVEL_TRANSITION_DURATION) {
                 startNextLevel();
             }
             repaint(); // Keep repainting during transition
@@ -670,68 +973,166 @@ public class GameBoard extends JPanel {
         
         if (gameOver) return;
 
+        // Each phase is timed as a flight recorder event and a trace span (both free when not recording)
+        // Apply buffered input at the tick boundary
+        GameFlightEvents.TickPhaseEvent phase = GameFlightEvents.beginPhase();
+        long traceStart = TraceRecorder.begin();
+        applyQueuedInput();
+        endPhase(phase, "input", TRACE_INPUT, traceStart);
+
         // Move Pacman first
-        pacman.move(maze);
+        phase = GameFlightEvents.beginPhase();
+        traceStart = TraceRecorder.begin();
+        pacman.move();
+        maze.prefetchAround(pacman.getX(), pacman.getY());
+        pellets.prefetchAround(pacman.getX(), pacman.getY());
+        endPhase(phase, "pacman-move", TRACE_PACMAN_MOVE, traceStart);
         
-        // Check for collisions immediately after Pacman moves
-        checkCollisions();
+        // Collect pellets and fruit immediately after Pacman moves
+        phase = GameFlightEvents.beginPhase();
+        traceStart = TraceRecorder.begin();
+        checkPickups();
+        endPhase(phase, "pickups", TRACE_PICKUPS, traceStart);
         
         // Update ghost movements
+        phase = GameFlightEvents.beginPhase();
+        traceStart = TraceRecorder.begin();
         updateGhostMovements();
+        endPhase(phase, "ghost-movement", TRACE_GHOST_MOVEMENT, traceStart);
         
-        // Check for collisions again after ghosts move
+        // Check for ghost collisions once everyone has moved, over both paths through the tick
+        phase = GameFlightEvents.beginPhase();
+        traceStart = TraceRecorder.begin();
         checkCollisions();
-        
-        // Check if the power pellet effect has expired
-        if (isPowerPelletActive()) {
-            long elapsedTime = System.currentTimeMillis() - powerPelletStartTime;
-            if (elapsedTime >= POWER_PELLET_DURATION) {
-                deactivatePowerPellet(); // Reset ghosts to their normal state
-            }
+        endPhase(phase, "collisions", TRACE_COLLISIONS, traceStart);
+
+        phase = GameFlightEvents.beginPhase();
+        traceStart = TraceRecorder.begin();
+        updateTimers();
+        endPhase(phase, "timers", TRACE_TIMERS, traceStart);
+    }
+
+    // Closes a tick phase in both the flight recording and the timeline trace.
+    private void endPhase(GameFlightEvents.TickPhaseEvent event, String name, int traceId, long traceStart) {
+        GameFlightEvents.commitPhase(event, name, tickCount);
+        TraceRecorder.end(traceId, traceStart);
+    }
+
+    // Expires power pellets, fruit, notifications and immunity.
+    private void updateTimers() {
+        // Check if the power pellet effect has expired; this is the only timer on the ghosts' fright
+        if (powerPelletStartTime > 0 && !isPowerPelletActive(tickTime)) {
+            deactivatePowerPellet(); // Reset ghosts to their normal state
         }
 
         // Handle fruit spawning and duration
-        if (!fruitActive && Math.random() < 0.01) { // 1% chance per update to spawn fruit
+        if (!fruitActive && Math.random() < FRUIT_SPAWNS_PER_SECOND / TICK_RATE) { // Same chance per second at any tick rate
             spawnFruit();
         }
         
         // Check if fruit should expire
-        if (fruitActive && System.currentTimeMillis() - fruitStartTime > FRUIT_DURATION) {
+        if (fruitActive && tickTime - fruitStartTime > FRUIT_DURATION) {
             fruitActive = false;
         }
 
         // Check if fruit notification should expire
-        if (showFruitNotification && System.currentTimeMillis() - fruitNotificationStartTime > FRUIT_NOTIFICATION_DURATION) {
+        if (showFruitNotification && tickTime - fruitNotificationStartTime > FRUIT_NOTIFICATION_DURATION) {
             showFruitNotification = false;
         }
 
         // Check immunity status
-        if (pacmanImmune && System.currentTimeMillis() - immunityStartTime > IMMUNITY_DURATION) {
+        if (pacmanImmune && tickTime - immunityStartTime > IMMUNITY_DURATION) {
             pacmanImmune = false;
         }
     }
 
+    // Draws the editor's view of the visible cells (dead ends red, cells Pacman cannot reach grey) and its
+    // status lines.
+    private void paintEditor(Graphics2D g2d) {
+        g2d.translate(-cameraX, -cameraY);
+        int firstColumn = cameraX / CELL_SIZE;
+        int firstRow = cameraY / CELL_SIZE;
+        int lastColumn = Math.min(maze.getWidth() - 1, (cameraX + getWidth() - 1) / CELL_SIZE);
+        int lastRow = Math.min(maze.getHeight() - 1, (cameraY + getHeight() - 1) / CELL_SIZE);
+        for (int y = firstRow; y <= lastRow; y++) {
+            for (int x = firstColumn; x <= lastColumn; x++) {
+                if (editor.isWall(x, y)) {
+                    g2d.setColor(WALL_COLOR);
+                    g2d.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+                } else if (maze.isInHouse(x, y)) {
+                    continue;
+                } else if (editor.isDeadEnd(x, y)) {
+                    g2d.setColor(EDITOR_DEAD_END_COLOR);
+                    g2d.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+                } else if (!editor.isReachable(x, y)) {
+                    g2d.setColor(EDITOR_UNREACHABLE_COLOR);
+                    g2d.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+                } else {
+                    g2d.setColor(DOT_COLOR);
+                    g2d.fillOval(x * CELL_SIZE + CELL_SIZE * 3 / 8, y * CELL_SIZE + CELL_SIZE * 3 / 8, CELL_SIZE / 4, CELL_SIZE / 4);
+                }
+            }
+        }
+        pacman.draw(g2d, CELL_SIZE);
+        g2d.translate(cameraX, cameraY);
+
+        g2d.setColor(new Color(0, 0, 0, 200));
+        g2d.fillRect(0, getHeight() - 44, getWidth(), 44);
+        g2d.setFont(FontManager.RETRO_FONT.deriveFont(9f));
+        g2d.setColor(Color.WHITE);
+        g2d.drawString("EDITOR  PELLETS " + editor.getReachablePellets() + "  REGIONS " + editor.getComponentCount()
+            + "  DEAD ENDS " + editor.getDeadEndCount() + "  TUNNELS BLOCKED " + editor.getBrokenTunnelCount(), 8, getHeight() - 28);
+        g2d.setColor(editorMessage != null ? Color.RED : Color.LIGHT_GRAY);
+        g2d.drawString(editorMessage != null ? editorMessage.toUpperCase()
+            : "CLICK/DRAG: WALLS  ARROWS: SCROLL  F2: APPLY  ESC: DISCARD", 8, getHeight() - 12);
+    }
+
+    // Centers the camera on Pacman (between cells while he moves), clamped so it never shows past the maze edges.
+    private void updateCamera() {
+        int maxX = Math.max(0, maze.getWidth() * CELL_SIZE - getWidth());
+        int maxY = Math.max(0, maze.getHeight() * CELL_SIZE - getHeight());
+        int centerX = SubCell.toPixels(pacman.getFixedX(), CELL_SIZE) + CELL_SIZE / 2;
+        int centerY = SubCell.toPixels(pacman.getFixedY(), CELL_SIZE) + CELL_SIZE / 2;
+        cameraX = Math.max(0, Math.min(maxX, centerX - getWidth() / 2));
+        cameraY = Math.max(0, Math.min(maxY, centerY - getHeight() / 2));
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
+        long traceStart = TraceRecorder.begin();
+        GameFlightEvents.PaintEvent paintEvent = new GameFlightEvents.PaintEvent();
+        paintEvent.begin();
+        int wallsDrawn = 0;
+        int pelletsDrawn = 0;
+        long now = clock.now(); // Game time, so countdowns and fades freeze with a paused game
+
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // Draw the maze walls without any rounded corners
-        for (int i = 0; i < MAZE_HEIGHT; i++) {
-            for (int j = 0; j < MAZE_WIDTH; j++) {
-                if (maze[i][j] == 1) {
-                    g2d.setColor(WALL_COLOR);
-                    // Use regular rectangles for all walls
-                    g2d.fillRect(j * CELL_SIZE, i * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-                }
-            }
+        if (editor != null) {
+            paintEditor(g2d);
+            TraceRecorder.end(TRACE_PAINT, traceStart);
+            return;
         }
 
-        // Draw the pellets
-        for (int y = 0; y < pellets.length; y++) {
-            for (int x = 0; x < pellets[0].length; x++) {
-                if (pellets[y][x]) {
+        // Everything up to the HUD is drawn in maze space, shifted by the camera
+        updateCamera();
+        g2d.translate(-cameraX, -cameraY);
+        int firstColumn = cameraX / CELL_SIZE;
+        int firstRow = cameraY / CELL_SIZE;
+        int lastColumn = Math.min(maze.getWidth() - 1, (cameraX + getWidth() - 1) / CELL_SIZE);
+        int lastRow = Math.min(maze.getHeight() - 1, (cameraY + getHeight() - 1) / CELL_SIZE);
+
+        // Draw the maze walls from the cached wall tiles under the viewport
+        long phaseStart = TraceRecorder.begin();
+        wallsDrawn = wallLayer.draw(g2d, cameraX, cameraY, getWidth(), getHeight());
+
+        // Draw the pellets in view
+        for (int y = firstRow; y <= lastRow; y++) {
+            for (int x = firstColumn; x <= lastColumn; x++) {
+                if (pellets.has(x, y)) {
+                    pelletsDrawn++;
                     if (dotImage != null) {
                         g2d.drawImage(dotImage, x * CELL_SIZE + CELL_SIZE / 4, y * CELL_SIZE + CELL_SIZE / 4, CELL_SIZE / 2, CELL_SIZE / 2, null);
                     } else {
@@ -743,22 +1144,31 @@ public class GameBoard extends JPanel {
         }
 
         // Draw the power pellets
-        for (int i = 0; i < powerPelletPositions.length; i++) {
-            if (powerPelletsActive[i]) {
-                int x = powerPelletPositions[i][0];
-                int y = powerPelletPositions[i][1];
+        for (int i = 0; i < powerPelletsActive.length; i++) {
+            int x = maze.getPowerPelletX(i);
+            int y = maze.getPowerPelletY(i);
+            if (powerPelletsActive[i] && x >= firstColumn && x <= lastColumn && y >= firstRow && y <= lastRow) {
                 g2d.setColor(POWER_PELLET_COLOR);
                 // Larger dots for power pellets
                 g2d.fillOval(x * CELL_SIZE + CELL_SIZE / 4, y * CELL_SIZE + CELL_SIZE / 4, CELL_SIZE / 2, CELL_SIZE / 2);
+                pelletsDrawn++;
             }
         }
 
+        TraceRecorder.end(TRACE_PAINT_MAZE, phaseStart);
+
         // Draw Pacman
+        phaseStart = TraceRecorder.begin();
         pacman.draw(g2d, CELL_SIZE);
 
-        // Draw the ghosts
+        // Draw the ghosts in view, and those a cell outside it that may be sliding in
+        int ghostsDrawn = 0;
         for (Ghost ghost : ghosts) {
-            ghost.draw(g2d, CELL_SIZE);
+            if (ghost.getX() >= firstColumn - 1 && ghost.getX() <= lastColumn + 1
+                && ghost.getY() >= firstRow - 1 && ghost.getY() <= lastRow + 1) {
+                ghost.draw(g2d, CELL_SIZE);
+                ghostsDrawn++;
+            }
         }
 
         // Draw the fruit if active
@@ -773,10 +1183,15 @@ public class GameBoard extends JPanel {
             }
         }
 
+        // Back to screen space for the HUD
+        g2d.translate(cameraX, cameraY);
+        TraceRecorder.end(TRACE_PAINT_SPRITES, phaseStart);
+
         // Optional: Add visual indicator for power pellet timer
-        if (isPowerPelletActive()) {
+        phaseStart = TraceRecorder.begin();
+        if (isPowerPelletActive(now)) {
             // Calculate remaining time as a percentage
-            double remainingTime = 1.0 - ((double)(System.currentTimeMillis() - powerPelletStartTime) / POWER_PELLET_DURATION);
+            double remainingTime = 1.0 - ((double)(now - powerPelletStartTime) / POWER_PELLET_DURATION);
             
             // Draw a timer bar at the top of the screen
             g2d.setColor(Color.BLUE);
@@ -784,7 +1199,7 @@ public class GameBoard extends JPanel {
             g2d.fillRect(0, 0, timerWidth, 5);
             
             // Draw the countdown text
-            int secondsLeft = (int)Math.ceil((POWER_PELLET_DURATION - (System.currentTimeMillis() - powerPelletStartTime)) / 1000.0);
+            int secondsLeft = (int)Math.ceil((POWER_PELLET_DURATION - (now - powerPelletStartTime)) / 1000.0);
             g2d.setColor(Color.WHITE);
             g2d.setFont(FontManager.RETRO_FONT.deriveFont(16f));
             String timerText = "POWER TIME: " + secondsLeft;
@@ -796,7 +1211,7 @@ public class GameBoard extends JPanel {
         // Draw fruit consumption notification
         if (showFruitNotification) {
             // Calculate fade effect based on remaining time
-            long elapsed = System.currentTimeMillis() - fruitNotificationStartTime;
+            long elapsed = now - fruitNotificationStartTime;
             float alpha = 1.0f - (float)elapsed / FRUIT_NOTIFICATION_DURATION;
             alpha = Math.max(0, Math.min(1, alpha)); // Clamp between 0 and 1
             
@@ -811,7 +1226,7 @@ public class GameBoard extends JPanel {
             FontMetrics fm = g2d.getFontMetrics();
             int textWidth = fm.stringWidth(fruitText);
             int x = (getWidth() - textWidth) / 2;
-            int y = isPowerPelletActive() ? 45 : 25; // Position below power pellet timer if active
+            int y = isPowerPelletActive(now) ? 45 : 25; // Position below power pellet timer if active
             
             g2d.drawString(fruitText, x, y);
         }
@@ -823,7 +1238,7 @@ public class GameBoard extends JPanel {
             g2d.fillRect(0, 0, getWidth(), getHeight());
             
             // Calculate progress through transition (0.0 to 1.0)
-            float progress = Math.min(1.0f, (float)(System.currentTimeMillis() - levelTransitionStartTime) / LEVEL_TRANSITION_DURATION);
+            float progress = Math.min(1.0f, (float)(now - levelTransitionStartTime) / LEVEL_TRANSITION_DURATION);
             
             // Draw level title with a pulse effect
             float pulseScale = 1.0f + 0.2f * (float)Math.sin(progress * Math.PI * 4);
@@ -855,6 +1270,14 @@ public class GameBoard extends JPanel {
             }
         }
 
+        // Pause and speed indicators in the bottom corner
+        if (clock.isPaused() || clock.getSpeed() != 1.0) {
+            g2d.setColor(Color.WHITE);
+            g2d.setFont(FontManager.RETRO_FONT.deriveFont(12f));
+            String clockText = clock.isPaused() ? "PAUSED" : "SPEED x" + clock.getSpeed();
+            g2d.drawString(clockText, getWidth() - g2d.getFontMetrics().stringWidth(clockText) - 10, getHeight() - 10);
+        }
+
         // Draw the game over or win screen if the game is over
         if (gameOver) {
             g2d.setColor(new Color(0, 0, 0, 180)); // Semi-transparent black overlay
@@ -893,6 +1316,24 @@ public class GameBoard extends JPanel {
             // Draw high score podium
             drawHighScorePodium(g2d, y + 130);
             
+            // Player's personal best, once the profile has been read
+            if (playerBestScore >= 0) {
+                g2d.setColor(Color.WHITE);
+                g2d.setFont(FontManager.RETRO_FONT.deriveFont(12f));
+                String bestText = playerName + " BEST: " + playerBestScore;
+                textWidth = g2d.getFontMetrics().stringWidth(bestText);
+                g2d.drawString(bestText, (getWidth() - textWidth) / 2, getHeight() - 105);
+            }
+
+            // Standing among every game ever played, once the writer has worked it out
+            if (scorePercentile >= 0) {
+                g2d.setColor(Color.CYAN);
+                g2d.setFont(FontManager.RETRO_FONT.deriveFont(12f));
+                String percentileText = "BETTER THAN " + (int) scorePercentile + "% OF GAMES";
+                textWidth = g2d.getFontMetrics().stringWidth(percentileText);
+                g2d.drawString(percentileText, (getWidth() - textWidth) / 2, getHeight() - 80);
+            }
+
             // Restart instruction at the bottom
             g2d.setColor(Color.WHITE);
             g2d.setFont(FontManager.RETRO_FONT.deriveFont(12f));
@@ -900,6 +1341,28 @@ public class GameBoard extends JPanel {
             textWidth = g2d.getFontMetrics().stringWidth(restartText);
             g2d.drawString(restartText, (getWidth() - textWidth) / 2, getHeight() - 50);
         }
+
+        TraceRecorder.end(TRACE_PAINT_HUD, phaseStart);
+
+        // The frame is complete; close the latency measurement for the last applied input
+        long paintEnd = System.nanoTime();
+        inputQueue.markDisplayed(paintEnd);
+
+        // The overlay is drawn last and kept out of the paint time it reports
+        performanceOverlay.recordPaint(paintEnd - paintStart, paintEnd);
+        GameMetrics.paintDurations.record(paintEnd - paintStart);
+        performanceOverlay.draw(g2d);
+
+        if (paintEvent.shouldCommit()) {
+            int spritesDrawn = 1 + ghostsDrawn + (fruitActive ? 1 : 0);
+            paintEvent.wallsDrawn = wallsDrawn;
+            paintEvent.pelletsDrawn = pelletsDrawn;
+            paintEvent.spritesDrawn = spritesDrawn;
+            paintEvent.drawCalls = wallsDrawn + pelletsDrawn + spritesDrawn;
+            paintEvent.screen = gameOver ? "GAME_OVER" : inLevelTransition ? "TRANSITION" : "PLAYING";
+            paintEvent.commit();
+        }
+        TraceRecorder.end(TRACE_PAINT, traceStart);
     }
     
     // Draw the high score podium showing top 5 scores
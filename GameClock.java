@@ -0,0 +1,80 @@
+// Game time in milliseconds, owned by one game. Everything in the game that times out (power pellets, immunity,
+// fruit, notifications, level transitions, ghost releases) compares against this clock rather than the system
+// clock, so the game can be paused, slowed down or sped up without its timers running on underneath it.
+//
+// A wall clock follows System.nanoTime, scaled by the speed and frozen while paused; it drives interactive
+// play. A tick clock advances a fixed step on every tick and never reads the system clock, so a headless run
+// steps as fast as the CPU allows and still sees exactly the game time an interactive game sees after the
+// same number of ticks. A tick clock has no real time to scale: its speed is however fast the caller ticks it.
+//
+// The clock belongs to the game thread; it is not synchronized.
+public class GameClock {
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final long tickNanos; // 0 for a wall clock
+    private long baseNanos;       // Game time when the wall clock was last paused, resumed or rescaled
+    private long wallBaseNanos;   // System.nanoTime at that moment
+    private double speed = 1.0;
+    private boolean paused;
+
+    private GameClock(long tickNanos) {
+        this.tickNanos = tickNanos;
+        this.wallBaseNanos = System.nanoTime();
+    }
+
+    // Clock for interactive play, starting at zero and running at real time.
+    public static GameClock wall() {
+        return new GameClock(0);
+    }
+
+    // Clock for headless runs, starting at zero and advancing tickNanos of game time per tick.
+    public static GameClock ticks(long tickNanos) {
+        if (tickNanos <= 0) throw new IllegalArgumentException("Tick length must be positive: " + tickNanos);
+        return new GameClock(tickNanos);
+    }
+
+    // Current game time in milliseconds.
+    public long now() {
+        return gameNanos() / NANOS_PER_MILLI;
+    }
+
+    // Marks the start of a simulation tick; a tick clock steps forward, a wall clock needs nothing.
+    public void tick() {
+        if (tickNanos > 0 && !paused) {
+            baseNanos += tickNanos;
+        }
+    }
+
+    // Stops or restarts game time; nothing that compares against the clock expires while it is paused.
+    public void setPaused(boolean paused) {
+        if (paused == this.paused) return;
+        rebase();
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    // Game time per unit of real time: below 1 is slow motion, above 1 is time warp. Ignored by a tick clock.
+    public void setSpeed(double speed) {
+        if (!(speed > 0)) throw new IllegalArgumentException("Speed must be positive: " + speed);
+        rebase();
+        this.speed = speed;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    private long gameNanos() {
+        if (tickNanos > 0 || paused) return baseNanos;
+        return baseNanos + (long) ((System.nanoTime() - wallBaseNanos) * speed);
+    }
+
+    // Folds the time elapsed so far into the base, so a change of speed or pause only affects what follows.
+    private void rebase() {
+        baseNanos = gameNanos();
+        wallBaseNanos = System.nanoTime();
+    }
+}
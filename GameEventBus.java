@@ -0,0 +1,94 @@
+// Import packages
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Collects gameplay events while a tick runs and publishes one coalesced snapshot when the tick ends.
+// HUD components, analytics and metrics all subscribe here instead of being poked directly for every
+// pellet, so a tick that eats a pellet and a ghost produces one update rather than several.
+public class GameEventBus {
+    // Gameplay events that can occur during a tick
+    public enum Type {
+        PELLET_EATEN,
+        POWER_PELLET_EATEN,
+        FRUIT_EATEN,
+        GHOST_EATEN,
+        PACMAN_DIED,
+        LEVEL_CLEARED,
+        GAME_OVER,
+        GAME_STARTED
+    }
+
+    // Receives the coalesced snapshot at the end of every tick in which something happened
+    public interface Listener {
+        void onSnapshot(Snapshot snapshot);
+    }
+
+    // Game values at the end of a tick and the events counted during it. The bus reuses a single
+    // instance, so listeners must copy anything they want to keep.
+    public static final class Snapshot {
+        private int score;
+        private int lives;
+        private int level;
+        private final int[] eventCounts = new int[TYPES.length];
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getLives() {
+            return lives;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        // Number of times the event occurred during the tick
+        public int getEventCount(Type type) {
+            return eventCounts[type.ordinal()];
+        }
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final List<Listener> listeners = new ArrayList<>();
+    private final Snapshot snapshot = new Snapshot();
+    private final int[] pendingCounts = new int[TYPES.length];
+    private boolean dirty = false;
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Records an event for the current tick.
+    public void post(Type type) {
+        pendingCounts[type.ordinal()]++;
+        dirty = true;
+    }
+
+    // Forces the next publish to notify listeners even if no event was posted.
+    public void markDirty() {
+        dirty = true;
+    }
+
+    // Publishes the end-of-tick snapshot if anything happened since the last publish.
+    public void publish(int score, int lives, int level) {
+        if (!dirty) return;
+
+        snapshot.score = score;
+        snapshot.lives = lives;
+        snapshot.level = level;
+        System.arraycopy(pendingCounts, 0, snapshot.eventCounts, 0, pendingCounts.length);
+        Arrays.fill(pendingCounts, 0);
+        dirty = false;
+
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onSnapshot(snapshot);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// Import packages
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder events for the game loop. Record with e.g.
+//   java -XX:StartFlightRecording=filename=pacman.jfr,settings=profile PacmanGame
+// and open the file in JDK Mission Control. When recording is off, begin/commit are no-ops and the
+// short-lived event objects are removed by escape analysis, so the instrumentation costs next to nothing.
+// Tick phase events are handed across methods, which defeats escape analysis, so they are not created at
+// all unless their type is enabled.
+public class GameFlightEvents {
+    // One phase of a simulation tick (input, Pacman move, collisions, ghost movement, timers).
+    @Name("pacman.TickPhase")
+    @Label("Tick Phase")
+    @Category({"Pacman", "Simulation"})
+    @StackTrace(false)
+    public static class TickPhaseEvent extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Tick")
+        long tick;
+    }
+
+    // One paintComponent pass with the number of draw calls it issued.
+    @Name("pacman.Paint")
+    @Label("Paint")
+    @Category({"Pacman", "Rendering"})
+    @StackTrace(false)
+    public static class PaintEvent extends Event {
+        @Label("Draw Calls")
+        int drawCalls;
+
+        @Label("Wall Tiles Drawn")
+        @Description("Cached wall tiles blitted for the visible part of the maze")
+        int wallsDrawn;
+
+        @Label("Pellets Drawn")
+        int pelletsDrawn;
+
+        @Label("Sprites Drawn")
+        int spritesDrawn;
+
+        @Label("Screen")
+        @Description("PLAYING, TRANSITION or GAME_OVER")
+        String screen;
+    }
+
+    // Instant gameplay event: death, level clear or power pellet.
+    @Name("pacman.Gameplay")
+    @Label("Gameplay")
+    @Category({"Pacman", "Gameplay"})
+    @StackTrace(false)
+    public static class GameplayEvent extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Score")
+        int score;
+
+        @Label("Level")
+        int level;
+
+        @Label("Lives")
+        int lives;
+
+        @Label("Ghost")
+        @Description("Personality of the ghost involved, -1 if none")
+        int ghost;
+    }
+
+    // One high score batch written to disk by the background writer.
+    @Name("pacman.HighScoreSave")
+    @Label("High Score Save")
+    @Category({"Pacman", "Persistence"})
+    @StackTrace(false)
+    public static class HighScoreSaveEvent extends Event {
+        @Label("Batch Size")
+        int batchSize;
+
+        @Label("Journal Entries")
+        int journalEntries;
+
+        @Label("Compacted")
+        boolean compacted;
+    }
+
+    private static final EventType TICK_PHASE_TYPE = EventType.getEventType(TickPhaseEvent.class);
+    private static final EventType GAMEPLAY_TYPE = EventType.getEventType(GameplayEvent.class);
+
+    // Begins a tick phase, or returns null (which commitPhase ignores) while tick phases are not recorded.
+    public static TickPhaseEvent beginPhase() {
+        if (!TICK_PHASE_TYPE.isEnabled()) return null;
+        TickPhaseEvent event = new TickPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    // Commits a tick phase that was begun by beginPhase.
+    public static void commitPhase(TickPhaseEvent event, String phase, long tick) {
+        if (event != null && event.shouldCommit()) {
+            event.phase = phase;
+            event.tick = tick;
+            event.commit();
+        }
+    }
+
+    // Emits an instant gameplay event; nothing is allocated while gameplay events are not recorded.
+    public static void gameplay(String type, int score, int level, int lives, int ghost) {
+        if (!GAMEPLAY_TYPE.isEnabled()) return;
+        GameplayEvent event = new GameplayEvent();
+        if (event.isEnabled()) {
+            event.type = type;
+            event.score = score;
+            event.level = level;
+            event.lives = lives;
+            event.ghost = ghost;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+// Import packages
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide game and engine counters, served in Prometheus text format on loopback when started with
+// -Dpacman.metrics.port=<port> (e.g. curl http://127.0.0.1:9464/metrics).
+//
+// Every counter and histogram bucket is a LongAdder, which stripes updates across cells under contention,
+// so many boards simulating in parallel can record without fighting over one cache line. Ticks are
+// exported as a counter; ticks per second is rate(pacman_ticks_total[1m]) on the scraping side.
+public class GameMetrics {
+    private static final String[] PERSONALITIES = {"chaser", "ambusher", "patrol", "random"};
+
+    public static final LongAdder gamesStarted = new LongAdder();
+    public static final LongAdder gamesFinished = new LongAdder();
+    public static final LongAdder ticks = new LongAdder();
+
+    public static final Histogram scores = new Histogram("pacman_score", "Final score of finished games", 1,
+        500, 1000, 2000, 5000, 10000, 20000, 50000, 100000);
+    public static final Histogram tickDurations = new Histogram("pacman_tick_duration_seconds", "Simulation tick time", 1e-9,
+        50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, 50_000_000);
+    public static final Histogram paintDurations = new Histogram("pacman_paint_duration_seconds", "paintComponent time", 1e-9,
+        250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, 25_000_000, 50_000_000);
+    public static final Histogram highScoreIo = new Histogram("pacman_highscore_io_duration_seconds",
+        "Time to write one high score batch to disk", 1e-9,
+        100_000, 500_000, 1_000_000, 5_000_000, 10_000_000, 50_000_000, 100_000_000, 500_000_000);
+
+    // Direction decisions per ghost personality: [personality][0 = targeted, 1 = random]
+    private static final LongAdder[][] ghostDecisions = new LongAdder[PERSONALITIES.length][2];
+    static {
+        for (LongAdder[] personality : ghostDecisions) {
+            personality[0] = new LongAdder();
+            personality[1] = new LongAdder();
+        }
+    }
+
+    private static HttpServer server;
+
+    // Fixed-bucket histogram over raw long values, exported with the given unit scale.
+    public static final class Histogram {
+        private final String name;
+        private final String help;
+        private final double scale;
+        private final long[] bounds;
+        private final LongAdder[] buckets; // Non-cumulative; the last one is +Inf
+        private final LongAdder sum = new LongAdder();
+
+        Histogram(String name, String help, double scale, long... bounds) {
+            this.name = name;
+            this.help = help;
+            this.scale = scale;
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) i++;
+            buckets[i].increment();
+            sum.add(value);
+        }
+
+        void write(StringBuilder out) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+            out.append("# TYPE ").append(name).append(" histogram\n");
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < bounds.length ? format(bounds[i] * scale) : "+Inf";
+                out.append(name).append("_bucket{le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+            }
+            out.append(name).append("_sum ").append(format(sum.sum() * scale)).append('\n');
+            out.append(name).append("_count ").append(cumulative).append('\n');
+        }
+    }
+
+    // Counts one ghost direction decision.
+    public static void ghostDecision(int personality, boolean random) {
+        if (personality < 0 || personality >= PERSONALITIES.length) return;
+        ghostDecisions[personality][random ? 1 : 0].increment();
+    }
+
+    // Starts the endpoint if a port is configured. Safe to call more than once.
+    public static synchronized void startIfConfigured() {
+        Integer port = Integer.getInteger("pacman.metrics.port");
+        if (port == null || server != null) return;
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start(); // Default executor: one background thread handles scrapes
+        } catch (IOException e) {
+            System.err.println("Error starting metrics endpoint: " + e.getMessage());
+            server = null;
+        }
+    }
+
+    // All metrics in Prometheus text exposition format.
+    public static String render() {
+        StringBuilder out = new StringBuilder(4096);
+        counter(out, "pacman_games_started_total", "Games started", gamesStarted.sum());
+        counter(out, "pacman_games_finished_total", "Games finished", gamesFinished.sum());
+        counter(out, "pacman_ticks_total", "Simulation ticks run", ticks.sum());
+
+        out.append("# HELP pacman_ghost_decisions_total Ghost direction decisions by personality\n");
+        out.append("# TYPE pacman_ghost_decisions_total counter\n");
+        for (int p = 0; p < PERSONALITIES.length; p++) {
+            for (int kind = 0; kind < 2; kind++) {
+                out.append("pacman_ghost_decisions_total{personality=\"").append(PERSONALITIES[p])
+                    .append("\",kind=\"").append(kind == 0 ? "targeted" : "random").append("\"} ")
+                    .append(ghostDecisions[p][kind].sum()).append('\n');
+            }
+        }
+
+        scores.write(out);
+        tickDurations.write(out);
+        paintDurations.write(out);
+        highScoreIo.write(out);
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,98 @@
+// Import packages
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Cell-occupancy index of ghost positions: which ghosts stand on a given cell, rebuilt from scratch each time
+// the ghosts have moved. Every occupied cell gets one slot in an open-addressed hash table at least four times
+// the ghost count, and a counting sort lays the ghost indexes out slot by slot. A rebuild is two linear passes
+// and a lookup is a short probe, however many ghosts pile onto one cell, which replaces scanning every ghost for
+// every ghost (quadratic once swarms reach the thousands).
+//
+// The positions are a snapshot taken before the ghosts move. While they move, claim() marks the cells they step
+// onto as taken so the next ghost cannot step there too; forEachAt still reports the snapshot. Rebuilding and
+// claiming belong to one thread; lookups are safe from any number of threads in between.
+public class GhostGrid {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] slotOf;
+    private final int mask;
+    private final long[] keys;
+    private final int[] slotStart; // Slot s holds entries[slotStart[s] .. slotStart[s + 1])
+    private final int[] entries;
+
+    public GhostGrid(int ghostCount) {
+        int slots = Integer.highestOneBit(Math.max(1, ghostCount) * 4 - 1) << 1; // Room for a claim per ghost
+        this.xs = new int[ghostCount];
+        this.ys = new int[ghostCount];
+        this.slotOf = new int[ghostCount];
+        this.mask = slots - 1;
+        this.keys = new long[slots];
+        this.slotStart = new int[slots + 1];
+        this.entries = new int[ghostCount];
+    }
+
+    // Snapshots the cells of ghosts 0 .. count - 1 and regroups the ghosts by cell.
+    public void rebuild(int[] ghostX, int[] ghostY, int count) {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(slotStart, 0);
+        System.arraycopy(ghostX, 0, xs, 0, count);
+        System.arraycopy(ghostY, 0, ys, 0, count);
+        for (int i = 0; i < count; i++) {
+            int slot = probe(xs[i], ys[i]);
+            keys[slot] = key(xs[i], ys[i]);
+            slotOf[i] = slot;
+            slotStart[slot]++;
+        }
+
+        // Running totals leave each slot at the end of its range; filling backwards walks it down to the start
+        for (int s = 1; s <= mask; s++) {
+            slotStart[s] += slotStart[s - 1];
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            entries[--slotStart[slotOf[i]]] = i;
+        }
+        slotStart[mask + 1] = count;
+    }
+
+    // Takes the cell for a ghost stepping onto it; false if a ghost stood there or already claimed it.
+    public boolean claim(int x, int y) {
+        int slot = probe(x, y);
+        if (keys[slot] != EMPTY) return false;
+        keys[slot] = key(x, y); // Its range in entries stays empty
+        return true;
+    }
+
+    // Calls the action with the index of every ghost that was on the cell at the last rebuild.
+    public void forEachAt(int x, int y, IntConsumer action) {
+        int slot = probe(x, y);
+        if (keys[slot] == EMPTY) return;
+        for (int k = slotStart[slot]; k < slotStart[slot + 1]; k++) {
+            action.accept(entries[k]);
+        }
+    }
+
+    // Ghost i's cell at the last rebuild
+    public int getX(int i) {
+        return xs[i];
+    }
+
+    public int getY(int i) {
+        return ys[i];
+    }
+
+    // The cell's slot, or the empty slot where it would go (the table is never more than half full).
+    private int probe(int x, int y) {
+        long key = key(x, y);
+        int slot = ((x * 0x9E3779B1) ^ (y * 0x85EBCA77)) >>> 11 & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long key(int x, int y) {
+        return ((long) y << 32) | (x & 0xFFFFFFFFL);
+    }
+}
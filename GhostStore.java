@@ -0,0 +1,646 @@
+// Import packages
+import java.util.function.IntConsumer;
+
+// Simulation state of every ghost in parallel primitive arrays, one slot per ghost, with the movement and AI
+// kernels written as loops over a range of slots. A tick walks a few flat arrays front to back instead of
+// chasing one heap object (and its Random, Timer and sprites) per ghost, and a range is the unit of parallel
+// work. Ghost objects are thin views over one slot, used for rendering and for the per-ghost calls the board
+// makes on collisions.
+//
+// Each ghost is in one lifecycle state at a time: waiting in the house, walking out of it, scatter or chase
+// (whichever the global schedule has in force), frightened, or eaten and returning to the house as eyes. The
+// moves between them are a table of state x event, and every timed transition is a tick countdown in a
+// primitive array, so the whole lifecycle is one loop over the slots per tick: no timer threads, no flags
+// spread across classes. Exiting ghosts and eyes follow the maze's distance-to-exit field and pass through
+// other ghosts; everyone else steers.
+//
+// Ghosts only think at junctions. In a corridor or around a corner there is one way on, read straight from
+// the maze's precomputed move mask, so a ghost follows it without any AI and cannot dither mid-corridor; the
+// personality (or a random pick, by difficulty) chooses among the ways out only when a ghost arrives on a cell
+// with more than one. AI work per tick is proportional to the junctions reached, not to ghosts times ticks.
+//
+// Positions are fixed point (see SubCell): a ghost is on its way from cell (x, y) to (nextX, nextY), progress
+// units of the way there, at a speed that depends on what it is doing (slower frightened and in the side
+// tunnels, faster as eyes). A ghost only plans and claims a step when it stands on a cell centre, so a tick
+// costs the same per ghost whatever the tick rate, and a higher tick rate only makes the motion smoother.
+//
+// A tick moves the ghosts in three passes: planMoves picks the direction and next cell of each ghost standing on
+// a cell centre, claimMoves takes those cells in slot order so two ghosts never head for the same one, and
+// advance moves every ghost along its step. planMoves only touches the slots in its range, so disjoint ranges
+// can run on different threads; the other passes and everything else belong to the game thread.
+public class GhostStore {
+    // Personalities, in the order of the classic ghosts
+    public static final int BLINKY = 0; // Chaser - Aggressively chases Pacman
+    public static final int PINKY = 1;  // Ambusher - Tries to cut off Pacman's path
+    public static final int INKY = 2;   // Patrol - Uses teamwork strategy with Blinky
+    public static final int CLYDE = 3;  // Random - Unpredictable behavior based on distance
+
+    // Lifecycle states
+    public static final int IN_HOUSE = 0;   // Waiting on its spawn cell for the release countdown
+    public static final int EXITING = 1;    // Walking out through the house door
+    public static final int SCATTER = 2;    // Heading for its personality's home corner
+    public static final int CHASE = 3;      // Hunting Pacman by personality
+    public static final int FRIGHTENED = 4; // Blue and fleeing; Pacman can eat it
+    public static final int EATEN = 5;      // Eyes returning to the house
+
+    // Events that move a ghost between states
+    private static final int TIMER = 0;       // Its countdown ran out
+    private static final int LEFT_HOUSE = 1;  // Reached the exit cell
+    private static final int MODE_SWITCH = 2; // The schedule flipped between scatter and chase
+    private static final int FRIGHTEN = 3;    // Pacman ate a power pellet
+    private static final int EAT = 4;         // Pacman ate it
+    private static final int HOME = 5;        // Eyes reached the exit cell
+    private static final int CALM = 6;        // The power pellet wore off
+
+    private static final int STAY = -1; // No transition
+    private static final int MODE = 6;  // Whichever of scatter and chase is in force
+
+    // Next state by [state][event]
+    private static final byte[][] TRANSITIONS = {
+        //               TIMER    LEFT_HOUSE MODE_SWITCH FRIGHTEN    EAT    HOME      CALM
+        /* IN_HOUSE   */ {EXITING, STAY,      STAY,       STAY,       STAY,  STAY,     STAY},
+        /* EXITING    */ {STAY,    MODE,      STAY,       STAY,       STAY,  STAY,     STAY},
+        /* SCATTER    */ {STAY,    STAY,      CHASE,      FRIGHTENED, STAY,  STAY,     STAY},
+        /* CHASE      */ {STAY,    STAY,      SCATTER,    FRIGHTENED, STAY,  STAY,     STAY},
+        /* FRIGHTENED */ {STAY,    STAY,      STAY,       FRIGHTENED, EATEN, STAY,     MODE},
+        /* EATEN      */ {STAY,    STAY,      STAY,       STAY,       STAY,  IN_HOUSE, STAY},
+    };
+
+    // Ghosts turn around when the mode flips and when they are frightened (classic behavior)
+    private static final boolean[] REVERSES = {false, false, true, true, false, false, false};
+
+    // How long each state lasts on entry, 0 for no limit; an eaten ghost waits 5 seconds back in the house.
+    // Frightened has no timer of its own: it lasts until the board's power pellet wears off and calms it.
+    private static final long[] STATE_MILLIS = {5000, 0, 0, 0, 0, 0};
+
+    // Scatter and chase alternate on this schedule from the start of each life, then chase for good
+    private static final long[] MODE_MILLIS = {7000, 20000, 7000, 20000, 5000, 20000, 5000};
+
+    // Speeds: one cell per 120 ms like Pacman, slower frightened and in the tunnels, eyes at double speed
+    private static final double CELLS_PER_SECOND = 1000 / 120.0;
+    private static final double FRIGHTENED_SPEED = 0.5;
+    private static final double TUNNEL_SPEED = 0.4;
+    private static final double EATEN_SPEED = 2.0;
+
+    // How long a ghost waits behind another before turning back
+    private static final long PATIENCE_MILLIS = 120;
+
+    // Directions by index, matching the maze's move bits (1 << index): up, right, down, left
+    private static final int[] DIRECTION_X = {0, 1, 0, -1};
+    private static final int[] DIRECTION_Y = {-1, 0, 1, 0};
+
+    private int count = 0;
+
+    // Position, direction and spawn cell; x and y are the cell the ghost is at or leaving
+    private final int[] x;
+    private final int[] y;
+    private final int[] progress;  // Fixed-point distance travelled towards (nextX, nextY)
+    private final boolean[] moving; // On its way to (nextX, nextY); otherwise it stands on (x, y)
+    private final int[] fromX;     // Fixed-point position before the last advance, for swept collisions
+    private final int[] fromY;
+    private final int[] dx;
+    private final int[] dy;
+    private final int[] startX;
+    private final int[] startY;
+
+    // AI state
+    private final byte[] personality;
+    private final boolean[] arrived; // On a cell it has not chosen a way out of yet
+    private final long[] randomState; // One SplittableRandom-style stream per ghost
+
+    // Lifecycle: the state, and the ticks until its TIMER event (0 for none)
+    private final byte[] state;
+    private final int[] stateTicks;
+
+    // Speeds per tick
+    private final int tickRate;
+    private final int normalStep;
+    private final int frightenedStep;
+    private final int tunnelStep;
+    private final int eatenStep;
+    private final int patience;
+
+    // Scatter/chase schedule shared by every ghost
+    private final int[] stateDurations; // STATE_MILLIS in ticks
+    private final int[] modeDurations;  // MODE_MILLIS in ticks
+    private int mode = SCATTER;
+    private int modePhase = 0;
+    private int modeTicks = 0;
+
+    // The current step: the cell a moving ghost is heading for, or (x, y) while it stands still
+    private final boolean[] planned;
+    private final int[] waited; // Ticks spent blocked by another ghost
+    private final int[] nextX;
+    private final int[] nextY;
+
+    private final GhostGrid grid; // The cell every ghost stood on or was heading for before this round of moves
+    private Maze maze;
+    private Pacman pacman; // For AI targeting
+    private int difficulty = 1; // 1=Easy, 2=Medium, 3=Hard
+
+    // Creates a store for up to capacity ghosts whose timers and speeds count tickRate ticks per second of game time.
+    public GhostStore(int capacity, Maze maze, int tickRate, long seed) {
+        this.x = new int[capacity];
+        this.y = new int[capacity];
+        this.progress = new int[capacity];
+        this.moving = new boolean[capacity];
+        this.fromX = new int[capacity];
+        this.fromY = new int[capacity];
+        this.dx = new int[capacity];
+        this.dy = new int[capacity];
+        this.startX = new int[capacity];
+        this.startY = new int[capacity];
+        this.personality = new byte[capacity];
+        this.arrived = new boolean[capacity];
+        this.randomState = new long[capacity];
+        this.state = new byte[capacity];
+        this.stateTicks = new int[capacity];
+        this.planned = new boolean[capacity];
+        this.waited = new int[capacity];
+        this.nextX = new int[capacity];
+        this.nextY = new int[capacity];
+        this.grid = new GhostGrid(capacity);
+        this.maze = maze;
+        this.tickRate = tickRate;
+        this.normalStep = SubCell.step(CELLS_PER_SECOND, tickRate);
+        this.frightenedStep = SubCell.step(CELLS_PER_SECOND * FRIGHTENED_SPEED, tickRate);
+        this.tunnelStep = SubCell.step(CELLS_PER_SECOND * TUNNEL_SPEED, tickRate);
+        this.eatenStep = SubCell.step(CELLS_PER_SECOND * EATEN_SPEED, tickRate);
+        this.patience = ticks(PATIENCE_MILLIS);
+        this.stateDurations = new int[STATE_MILLIS.length];
+        for (int s = 0; s < STATE_MILLIS.length; s++) {
+            stateDurations[s] = STATE_MILLIS[s] == 0 ? 0 : ticks(STATE_MILLIS[s]);
+        }
+        this.modeDurations = new int[MODE_MILLIS.length];
+        for (int phase = 0; phase < MODE_MILLIS.length; phase++) {
+            modeDurations[phase] = ticks(MODE_MILLIS[phase]);
+        }
+        for (int i = 0; i < capacity; i++) {
+            randomState[i] = mix(seed + i * 0x9E3779B97F4A7C15L);
+        }
+        restartModes();
+    }
+
+    // Adds a ghost waiting at its spawn cell, with no release scheduled, and returns its slot.
+    public int add(int spawnX, int spawnY, int personalityType) {
+        int i = count++;
+        personality[i] = (byte) personalityType;
+        startX[i] = spawnX;
+        startY[i] = spawnY;
+        reset(i);
+        return i;
+    }
+
+    // Number of ghosts in the store
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    // Fixed-point position, between cells while moving
+    public int getFixedX(int i) {
+        return (x[i] << SubCell.SHIFT) + (moving[i] ? dx[i] * progress[i] : 0);
+    }
+
+    public int getFixedY(int i) {
+        return (y[i] << SubCell.SHIFT) + (moving[i] ? dy[i] * progress[i] : 0);
+    }
+
+    // Fixed-point position before the last advance
+    public int getFromX(int i) {
+        return fromX[i];
+    }
+
+    public int getFromY(int i) {
+        return fromY[i];
+    }
+
+    // The longest fixed-point distance any ghost covers in a tick
+    public int getMaxStep() {
+        return Math.max(normalStep, eatenStep);
+    }
+
+    public int getPersonality(int i) {
+        return personality[i];
+    }
+
+    // Lifecycle state (IN_HOUSE .. EATEN)
+    public int getState(int i) {
+        return state[i];
+    }
+
+    // True if the ghost is currently vulnerable (blue state)
+    public boolean isVulnerable(int i) {
+        return state[i] == FRIGHTENED;
+    }
+
+    // True if the ghost has been eaten and is only eyes on the way home; it cannot be touched
+    public boolean isEaten(int i) {
+        return state[i] == EATEN;
+    }
+
+    // Sets the difficulty level, which decides how often a junction is taken by personality rather than at random.
+    public void setDifficulty(int difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    // Sets the reference to Pacman object for AI targeting calculations.
+    public void setPacman(Pacman pacman) {
+        this.pacman = pacman;
+    }
+
+    // Moves every ghost into a different maze; the caller sets each spawn cell and resets the ghosts.
+    public void setMaze(Maze maze) {
+        this.maze = maze;
+    }
+
+    public void setStart(int i, int spawnX, int spawnY) {
+        startX[i] = spawnX;
+        startY[i] = spawnY;
+    }
+
+    // Puts the ghost back on its spawn cell to wait in the house, with no release scheduled.
+    public void reset(int i) {
+        enter(i, IN_HOUSE, TIMER);
+        stateTicks[i] = 0;
+    }
+
+    // Puts the ghost back in the house to walk out after the given game time (at least one tick).
+    public void holdInHouse(int i, long delayMillis) {
+        enter(i, IN_HOUSE, TIMER);
+        stateTicks[i] = ticks(delayMillis);
+    }
+
+    // Frightens the ghost (again, restarting its countdown), or calms it early; ghosts in the house, on their
+    // way out of it or already eaten are unaffected.
+    public void setVulnerable(int i, boolean isVulnerable) {
+        fire(i, isVulnerable ? FRIGHTEN : CALM);
+    }
+
+    // Pacman ate the frightened ghost: its eyes head back to the house.
+    public void eat(int i) {
+        fire(i, EAT);
+    }
+
+    // Restarts the scatter/chase schedule from its first scatter phase (at the start of every life).
+    public void restartModes() {
+        mode = SCATTER;
+        modePhase = 0;
+        modeTicks = modeDurations[0];
+    }
+
+    // Runs one tick of every countdown: the schedule's, then each ghost's, firing the transitions that came due.
+    public void updateStates() {
+        if (modeTicks > 0 && --modeTicks == 0) {
+            mode = mode == SCATTER ? CHASE : SCATTER;
+            modePhase++;
+            modeTicks = modePhase < modeDurations.length ? modeDurations[modePhase] : 0;
+            for (int i = 0; i < count; i++) {
+                fire(i, MODE_SWITCH);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (stateTicks[i] > 0 && --stateTicks[i] == 0) {
+                fire(i, TIMER);
+            }
+        }
+    }
+
+    // Snapshots the cell every ghost stands on or is heading for; call before moving them.
+    public void indexPositions() {
+        grid.rebuild(nextX, nextY, count);
+    }
+
+    // Calls the action with the slot of every ghost that stood on or was heading for the cell at the last
+    // indexPositions().
+    public void forEachAt(int cellX, int cellY, IntConsumer action) {
+        grid.forEachAt(cellX, cellY, action);
+    }
+
+    // First pass: the direction and next cell for each ghost in [from, to) standing on a cell centre.
+    public void planMoves(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (state[i] == IN_HOUSE || moving[i]) continue;
+
+            if (state[i] == EXITING || state[i] == EATEN) {
+                int distance = maze.getExitDistance(x[i], y[i]);
+                if (distance > 0) {
+                    // On the way to the exit cell: always the step that gets closer, whatever is in the way
+                    turn(i, downhill(i));
+                    plan(i);
+                    continue;
+                }
+                if (state[i] == EATEN) {
+                    fire(i, HOME); // Home, or nowhere to walk from: straight back into the house
+                    continue;
+                }
+                if (distance < 0) {
+                    // A house with no way out: step straight onto the exit cell
+                    x[i] = maze.getExitX();
+                    y[i] = maze.getExitY();
+                    nextX[i] = x[i];
+                    nextY[i] = y[i];
+                    fromX[i] = x[i] << SubCell.SHIFT; // A jump, not a sweep across the maze
+                    fromY[i] = y[i] << SubCell.SHIFT;
+                }
+                fire(i, LEFT_HOUSE); // Out of the door; moves on below in its new state
+            }
+
+            int exits = exits(i);
+            int back = bit(-dx[i], -dy[i]);
+            int onward = exits & ~back;
+            if (onward == 0) {
+                turn(i, exits & back); // Dead end: back the way it came, or stay if boxed in
+            } else if (Integer.bitCount(onward) == 1) {
+                turn(i, onward); // Corridor or corner: the only way on
+            } else if (arrived[i] || (onward & bit(dx[i], dy[i])) == 0) {
+                decide(i, onward); // Junction, reached this tick or facing a wall
+            }
+            plan(i);
+        }
+    }
+
+    // Second pass, in slot order: each planned ghost sets off unless another ghost stands on, is heading for or
+    // took the cell.
+    public void claimMoves() {
+        for (int i = 0; i < count; i++) {
+            if (!planned[i]) continue;
+            planned[i] = false;
+            if (state[i] == EXITING || state[i] == EATEN) {
+                // Walking the exit path: passes through other ghosts and takes no cell from them
+                moving[i] = true;
+            } else if (grid.claim(nextX[i], nextY[i])) {
+                moving[i] = true;
+                waited[i] = 0;
+            } else {
+                nextX[i] = x[i];
+                nextY[i] = y[i];
+                progress[i] = 0;
+                if (++waited[i] > patience) {
+                    // Still blocked: turn back rather than wait nose to nose with a ghost coming the other way
+                    dx[i] = -dx[i];
+                    dy[i] = -dy[i];
+                    waited[i] = 0;
+                } // Otherwise wait; a ghost ahead going the same way will have moved on
+            }
+        }
+    }
+
+    // Third pass: every moving ghost covers its step; those reaching the next cell centre stop there to plan again.
+    public void advance() {
+        for (int i = 0; i < count; i++) {
+            fromX[i] = getFixedX(i);
+            fromY[i] = getFixedY(i);
+            if (!moving[i]) continue;
+            progress[i] += step(i);
+            if (progress[i] >= SubCell.ONE) {
+                x[i] = nextX[i];
+                y[i] = nextY[i];
+                progress[i] -= SubCell.ONE; // The rest of the step carries over into the next one
+                moving[i] = false;
+                arrived[i] = true;
+            }
+        }
+    }
+
+    // Maps the maze tiles ahead of ghosts that set off into a new tile during the last moves.
+    public void prefetchMoved() {
+        for (int i = 0; i < count; i++) {
+            if (maze.tileIndex(nextX[i], nextY[i]) != maze.tileIndex(grid.getX(i), grid.getY(i))) {
+                maze.prefetchAround(nextX[i], nextY[i]);
+            }
+        }
+    }
+
+    // Fixed-point distance the ghost covers this tick
+    private int step(int i) {
+        if (state[i] == EATEN) return eatenStep;
+        if (maze.isTunnel(x[i], y[i])) return tunnelStep;
+        return state[i] == FRIGHTENED ? frightenedStep : normalStep;
+    }
+
+    // Picks one of the ways out of a junction: by personality, or at random on the easier difficulties.
+    private void decide(int i, int onward) {
+        // Easy/Medium modes: Mix of intelligent and random behavior; Hard mode: Always use intelligent behavior
+        double intelligenceLevel = difficulty == 3 ? 1 : difficulty == 2 ? 0.65 : difficulty == 1 ? 0.2 : 0.3;
+        // Require Pacman reference for intelligent targeting
+        if (pacman == null || nextDouble(i) >= intelligenceLevel) {
+            GameMetrics.ghostDecision(personality[i], true);
+            turn(i, randomBit(i, onward));
+            return;
+        }
+        GameMetrics.ghostDecision(personality[i], false);
+
+        // Get Pacman's current state for targeting calculations
+        int pacmanX = pacman.getX();
+        int pacmanY = pacman.getY();
+        int pacmanDirX = pacman.getDirectionX();
+        int pacmanDirY = pacman.getDirectionY();
+
+        // When vulnerable, all ghosts flee from Pacman regardless of personality
+        if (state[i] == FRIGHTENED) {
+            turn(i, toward(i, onward, pacmanX, pacmanY, true));
+            return;
+        }
+
+        // In scatter mode each ghost heads for its own corner: Blinky top right, Pinky top left, Inky bottom
+        // right, Clyde bottom left
+        if (state[i] == SCATTER) {
+            int cornerX = personality[i] == BLINKY || personality[i] == INKY ? maze.getWidth() - 2 : 1;
+            int cornerY = personality[i] == BLINKY || personality[i] == PINKY ? 1 : maze.getHeight() - 2;
+            turn(i, toward(i, onward, cornerX, cornerY, false));
+            return;
+        }
+
+        int targetX = pacmanX;
+        int targetY = pacmanY;
+        switch (personality[i]) {
+            case PINKY -> {
+                // Targets 4 tiles ahead of Pacman's current direction
+                targetX += pacmanDirX * 4;
+                targetY += pacmanDirY * 4;
+                // Reproduce original Pacman bug: when moving up, also offset left
+                if (pacmanDirX == 0 && pacmanDirY == -1) {
+                    targetX -= 4;
+                }
+            }
+            case INKY -> {
+                int intermediateX = pacmanX + pacmanDirX * 2;
+                int intermediateY = pacmanY + pacmanDirY * 2;
+                // Apply the same historical bug as Pinky
+                if (pacmanDirX == 0 && pacmanDirY == -1) {
+                    intermediateX -= 2;
+                }
+                // Extend the vector from Blinky (slot 0, where it stood before this round) past the intermediate target
+                int blinkyX = grid.getX(0);
+                int blinkyY = grid.getY(0);
+                targetX = blinkyX + (intermediateX - blinkyX) * 2;
+                targetY = blinkyY + (intermediateY - blinkyY) * 2;
+            }
+            case CLYDE -> {
+                // Chase when far from Pacman, retreat to the bottom-left corner when close
+                if (Math.abs(x[i] - pacmanX) + Math.abs(y[i] - pacmanY) <= 8) {
+                    targetX = 1;
+                    targetY = maze.getHeight() - 2;
+                }
+            }
+            default -> { } // Blinky: Always targets Pacman's exact current position
+        }
+        turn(i, toward(i, onward, targetX, targetY, false));
+    }
+
+    // The way out whose next cell is closest to the target (or farthest, when fleeing); ties go up, right, down, left.
+    private int toward(int i, int onward, int targetX, int targetY, boolean away) {
+        int best = 0;
+        long bestDistance = 0;
+        for (int d = 0; d < 4; d++) {
+            if ((onward & (1 << d)) == 0) continue;
+            long deltaX = x[i] + DIRECTION_X[d] - targetX;
+            long deltaY = y[i] + DIRECTION_Y[d] - targetY;
+            long distance = deltaX * deltaX + deltaY * deltaY;
+            if (best == 0 || (away ? distance > bestDistance : distance < bestDistance)) {
+                best = 1 << d;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Open ways out of the ghost's cell, minus the house for ghosts that are not walking out of it.
+    private int exits(int i) {
+        int moves = maze.getMoves(x[i], y[i]);
+        if (state[i] != EXITING) {
+            for (int d = 0; d < 4; d++) {
+                if ((moves & (1 << d)) != 0 && maze.isInHouse(x[i] + DIRECTION_X[d], y[i] + DIRECTION_Y[d])) {
+                    moves &= ~(1 << d);
+                }
+            }
+        }
+        return moves;
+    }
+
+    // Faces the ghost along a single direction bit (standing still for 0).
+    private void turn(int i, int directionBit) {
+        if (directionBit == 0) {
+            dx[i] = 0;
+            dy[i] = 0;
+            return;
+        }
+        int d = Integer.numberOfTrailingZeros(directionBit);
+        dx[i] = DIRECTION_X[d];
+        dy[i] = DIRECTION_Y[d];
+    }
+
+    // One set bit of the mask, chosen uniformly.
+    private int randomBit(int i, int mask) {
+        for (int skip = nextInt(i, Integer.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return Integer.lowestOneBit(mask);
+    }
+
+    // Direction bit for a unit step (0 when standing still)
+    private static int bit(int stepX, int stepY) {
+        return stepY < 0 ? Maze.UP : stepX > 0 ? Maze.RIGHT : stepY > 0 ? Maze.DOWN : stepX < 0 ? Maze.LEFT : 0;
+    }
+
+    // The way out whose next cell is closest to the house exit (0 if none leads there).
+    private int downhill(int i) {
+        int exits = exits(i);
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int d = 0; d < 4; d++) {
+            if ((exits & (1 << d)) == 0) continue;
+            int nextY = y[i] + DIRECTION_Y[d];
+            int distance = maze.getExitDistance(maze.wrapX(x[i] + DIRECTION_X[d], nextY), nextY);
+            if (distance >= 0 && distance < bestDistance) {
+                best = 1 << d;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Records the ghost's next cell from its direction; it has now chosen its way out of this cell.
+    private void plan(int i) {
+        arrived[i] = false;
+        planned[i] = dx[i] != 0 || dy[i] != 0;
+        if (!planned[i]) progress[i] = 0; // Nowhere to go: nothing to carry over
+        // Tunnel rows wrap around at the edges (classic Pacman feature)
+        nextX[i] = maze.wrapX(x[i] + dx[i], y[i]);
+        nextY[i] = y[i] + dy[i];
+    }
+
+    // Applies an event to the ghost through the transition table.
+    private void fire(int i, int event) {
+        int next = TRANSITIONS[state[i]][event];
+        if (next == STAY) return;
+        enter(i, next == MODE ? mode : next, event);
+    }
+
+    // Moves the ghost into a state: starts its countdown and runs the state's entry action.
+    private void enter(int i, int next, int event) {
+        state[i] = (byte) next;
+        stateTicks[i] = stateDurations[next];
+        arrived[i] = true; // New behavior, fresh choice at the next junction
+        if (next == IN_HOUSE) {
+            x[i] = startX[i];
+            y[i] = startY[i];
+            nextX[i] = x[i];
+            nextY[i] = y[i];
+            dx[i] = 0;
+            dy[i] = 0;
+            progress[i] = 0;
+            moving[i] = false;
+            planned[i] = false;
+            waited[i] = 0;
+            fromX[i] = x[i] << SubCell.SHIFT;
+            fromY[i] = y[i] << SubCell.SHIFT;
+        } else if (REVERSES[event]) {
+            if (moving[i]) {
+                // Turn round mid-step: head back to the cell just left
+                nextX[i] = x[i];
+                nextY[i] = y[i];
+                x[i] = maze.wrapX(x[i] + dx[i], y[i]);
+                y[i] += dy[i];
+                progress[i] = SubCell.ONE - progress[i];
+            }
+            dx[i] = -dx[i];
+            dy[i] = -dy[i];
+        }
+    }
+
+    // Game time in whole ticks, rounded up and at least one
+    private int ticks(long millis) {
+        return (int) Math.max(1, (millis * tickRate + 999) / 1000);
+    }
+
+    // Uniform int in [0, bound) from the ghost's own stream.
+    private int nextInt(int i, int bound) {
+        return (int) (((nextLong(i) >>> 32) * bound) >>> 32);
+    }
+
+    // Uniform double in [0, 1) from the ghost's own stream.
+    private double nextDouble(int i) {
+        return (nextLong(i) >>> 11) * 0x1.0p-53;
+    }
+
+    private long nextLong(int i) {
+        randomState[i] += 0x9E3779B97F4A7C15L;
+        return mix(randomState[i]);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,102 +1,418 @@
 // Import packages
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.LongConsumer;
+import javax.swing.SwingUtilities;
 
+// Keeps the top scores in an in-memory cache that is loaded from disk once. Queries are answered from
+// memory and all disk work happens on a single background writer, so the game never touches the disk on
+// the EDT.
+//
+// Submissions are safe across threads and across game processes sharing the same directory. Scores are
+// queued in memory, and the writer appends each batch to highscores.journal under an exclusive FileChannel
+// lock. While it holds the lock it also merges the journal with highscores.txt. Once the journal grows past
+// a threshold it compacts: the merged table is written to a temp file, renamed over highscores.txt and the
+// journal is truncated. A crash at any point leaves every score either in the table or in the journal.
+//
+// Who played is in the player profile store, and where a score stands among every game ever played is in the
+// full leaderboard. Both sit behind cross-process file locks, so only the writer thread reads them, and
+// callers get their answers back on the EDT. The top-five table stays a separate small file rather than a
+// view over the profiles. The profiles keep one best score per player, while the podium lists the best games,
+// and one player can hold several places. It is also the one query the EDT answers straight from memory.
 public class HighScoreManager {
     private static final String HIGH_SCORE_FILE = "highscores.txt";
+    private static final String JOURNAL_FILE = "highscores.journal";
+    private static final String LOCK_FILE = "highscores.lock";
+    private static final String TEMP_SUFFIX = ".tmp";
     private static final int MAX_HIGH_SCORES = 5;
-    
-    // Load high scores from file
-    public static List<Integer> loadHighScores() {
-        List<Integer> highScores = new ArrayList<>();
-        try {
-            File file = new File(HIGH_SCORE_FILE);
-            if (!file.exists()) {
-                // Create file with default scores if it doesn't exist
-                saveDefaultHighScores();
-                return loadHighScores();
+    private static final int COMPACT_THRESHOLD = 64; // Journal entries before the table is rewritten
+    private static final String LEADERBOARD_NAME = "leaderboard";
+    private static final String PROFILE_FILE = "profiles.dat";
+
+    // Sorted (descending) cache of the top scores; null until first loaded
+    private static List<Integer> cache;
+
+    // Scores submitted but not yet handed to the writer; guarded by the class lock
+    private static final List<Integer> pending = new ArrayList<>();
+
+    // Every score ever submitted, for global rank and percentile queries; null until opened. Only the writer
+    // thread touches it: its queries take the same file lock as other processes' submissions.
+    private static Leaderboard leaderboard;
+
+    // Per-player profiles; null until opened. Only the writer thread touches it, like the leaderboard.
+    private static PlayerProfileStore profiles;
+
+    // Single background thread that owns all disk writes
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "highscore-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        // Let queued writes finish before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(HighScoreManager::flush, "highscore-flush"));
+    }
+
+    // Starts loading the high score table in the background so later queries never block on disk.
+    public static void preload() {
+        writer.execute(() -> {
+            ensureLoaded();
+            leaderboard();
+            profiles();
+        });
+    }
+
+    // Name of the player at this machine, from -Dpacman.player or the OS user name.
+    public static String getPlayerName() {
+        return System.getProperty("pacman.player", System.getProperty("user.name", "PLAYER")).toUpperCase();
+    }
+
+    // Adds a finished game to the player's profile in the background.
+    public static void recordGame(String player, int score, int pellets, int[] deathsByGhost, int level) {
+        int[] deaths = deathsByGhost.clone();
+        writer.execute(() -> {
+            PlayerProfileStore store = profiles();
+            if (store == null) return;
+            try {
+                store.recordGame(player, score, pellets, deaths, level);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
-            
-            BufferedReader reader = new BufferedReader(new FileReader(file));
-            String line;
-            while ((line = reader.readLine()) != null) {
+        });
+    }
+
+    // Reads the player's profile on the writer thread, after every game recorded before this call, and hands
+    // it (or null if unavailable) to the callback on the EDT.
+    public static void requestProfile(String player, Consumer<PlayerProfileStore.PlayerProfile> callback) {
+        writer.execute(() -> {
+            PlayerProfileStore store = profiles();
+            PlayerProfileStore.PlayerProfile profile = null;
+            if (store != null) {
                 try {
-                    int score = Integer.parseInt(line.trim());
-                    highScores.add(score);
-                } catch (NumberFormatException e) {
-                    // Skip invalid lines
+                    profile = store.get(player);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            PlayerProfileStore.PlayerProfile result = profile;
+            SwingUtilities.invokeLater(() -> callback.accept(result));
+        });
+    }
+
+    // Returns a copy of the current high scores, highest first.
+    public static synchronized List<Integer> loadHighScores() {
+        ensureLoaded();
+        return new ArrayList<>(cache);
+    }
+
+    // Replaces the high score table and persists it in the background.
+    public static synchronized void saveHighScores(List<Integer> highScores) {
+        cache = new ArrayList<>(highScores);
+        List<Integer> snapshot = new ArrayList<>(cache);
+        writer.execute(() -> replaceTable(snapshot));
+    }
+
+    // Add a new score and save updated high scores. Safe to call from any thread.
+    public static synchronized boolean addHighScore(int score) {
+        ensureLoaded();
+
+        // Queue for the writer; one drain task handles everything submitted before it runs
+        pending.add(score);
+        if (pending.size() == 1) {
+            writer.execute(HighScoreManager::drainPending);
+        }
+
+        // Answer from the cache right away; the writer reconciles it with other processes later
+        return insertScore(cache, score);
+    }
+
+    // Get rank of the score (1-based)
+    public static synchronized int getScoreRank(int score) {
+        ensureLoaded();
+        for (int i = 0; i < cache.size(); i++) {
+            if (score >= cache.get(i)) {
+                return i + 1;
+            }
+        }
+        return cache.size() + 1;
+    }
+
+    // Works out the percentage of all recorded games that scored lower (0-100) on the writer thread, after
+    // every score submitted before this call is counted, and hands it to the callback on the EDT.
+    public static void requestPercentile(int score, DoubleConsumer callback) {
+        writer.execute(() -> {
+            Leaderboard board = leaderboard();
+            double percentile = board == null ? 100.0 : board.percentile(score);
+            SwingUtilities.invokeLater(() -> callback.accept(percentile));
+        });
+    }
+
+    // Works out the rank of the score among every game ever recorded (1 = best) on the writer thread, after
+    // every score submitted before this call is counted, and hands it to the callback on the EDT.
+    public static void requestGlobalRank(int score, LongConsumer callback) {
+        writer.execute(() -> {
+            Leaderboard board = leaderboard();
+            long rank = board == null ? 1 : board.rank(score);
+            SwingUtilities.invokeLater(() -> callback.accept(rank));
+        });
+    }
+
+    // Blocks until every submitted score is on disk and the journal is compacted.
+    public static void flush() {
+        synchronized (HighScoreManager.class) {
+            if (cache == null) return; // Never used in this process (a headless run): leave the files alone
+        }
+        try {
+            writer.submit(() -> {
+                drainPending();
+                compact();
+                if (profiles != null) {
+                    profiles.force();
                 }
+            }).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("Error flushing high scores: " + e.getMessage());
+        }
+    }
+
+    // Inserts the score into a sorted top table if it qualifies; returns true if it did.
+    private static boolean insertScore(List<Integer> table, int score) {
+        // Check if the score qualifies as a high score
+        if (table.size() < MAX_HIGH_SCORES || score > table.get(table.size() - 1)) {
+            table.add(score);
+            Collections.sort(table, Collections.reverseOrder());
+
+            // Limit to max number of high scores
+            while (table.size() > MAX_HIGH_SCORES) {
+                table.remove(table.size() - 1);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Opens the full leaderboard the first time it is needed; null if it cannot be opened (writer thread only).
+    private static Leaderboard leaderboard() {
+        if (leaderboard == null) {
+            try {
+                leaderboard = new Leaderboard(LEADERBOARD_NAME);
+            } catch (IOException e) {
+                System.err.println("Error opening leaderboard: " + e.getMessage());
+            }
+        }
+        return leaderboard;
+    }
+
+    // Opens the profile store the first time it is needed; null if it cannot be opened (writer thread only).
+    private static PlayerProfileStore profiles() {
+        if (profiles == null) {
+            try {
+                profiles = new PlayerProfileStore(PROFILE_FILE);
+            } catch (IOException e) {
+                System.err.println("Error opening player profiles: " + e.getMessage());
+            }
+        }
+        return profiles;
+    }
+
+    // Writes all queued scores to the journal as one batch (runs on the writer thread).
+    private static void drainPending() {
+        int[] batch;
+        synchronized (HighScoreManager.class) {
+            if (pending.isEmpty()) return;
+            batch = new int[pending.size()];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = pending.get(i);
+            }
+            pending.clear();
+        }
+
+        long ioStart = System.nanoTime();
+        GameFlightEvents.HighScoreSaveEvent saveEvent = new GameFlightEvents.HighScoreSaveEvent();
+        saveEvent.begin();
+        try (FileChannel channel = openLockChannel()) {
+            channel.lock(); // Released when the channel closes
+            appendToJournal(batch);
+
+            // Reconcile with whatever other processes have recorded
+            List<Integer> merged = new ArrayList<>();
+            int journalEntries = readMergedTable(merged);
+            boolean compacted = journalEntries >= COMPACT_THRESHOLD;
+            if (compacted) {
+                writeTable(merged);
+            }
+            refreshCache(merged);
+
+            if (saveEvent.shouldCommit()) {
+                saveEvent.batchSize = batch.length;
+                saveEvent.journalEntries = journalEntries;
+                saveEvent.compacted = compacted;
+                saveEvent.commit();
             }
-            reader.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
-        
+        GameMetrics.highScoreIo.record(System.nanoTime() - ioStart);
+
+        Leaderboard board = leaderboard();
+        if (board != null) {
+            try {
+                board.submitAll(batch, batch.length);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Folds the journal into the table file (runs on the writer thread).
+    private static void compact() {
+        try (FileChannel channel = openLockChannel()) {
+            channel.lock(); // Released when the channel closes
+            List<Integer> merged = new ArrayList<>();
+            if (readMergedTable(merged) > 0) {
+                writeTable(merged);
+            }
+            refreshCache(merged);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Overwrites the table and discards the journal (runs on the writer thread).
+    private static void replaceTable(List<Integer> highScores) {
+        try (FileChannel channel = openLockChannel()) {
+            channel.lock(); // Released when the channel closes
+            writeTable(highScores);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Writes the default table unless another process created one first (runs on the writer thread).
+    private static void createDefaultTable() {
+        try (FileChannel channel = openLockChannel()) {
+            channel.lock(); // Released when the channel closes
+            if (!new File(HIGH_SCORE_FILE).exists() && !new File(JOURNAL_FILE).exists()) {
+                writeTable(defaultHighScores());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Replaces the cache with the merged table plus any scores still waiting for the writer.
+    private static synchronized void refreshCache(List<Integer> merged) {
+        for (int score : pending) {
+            insertScore(merged, score);
+        }
+        cache = merged;
+    }
+
+    // Loads the cache from disk the first time it is needed.
+    private static synchronized void ensureLoaded() {
+        if (cache != null) return;
+
+        if (!new File(HIGH_SCORE_FILE).exists() && !new File(JOURNAL_FILE).exists()) {
+            // Create file with default scores if it doesn't exist
+            cache = defaultHighScores();
+            writer.execute(HighScoreManager::createDefaultTable);
+            return;
+        }
+
+        // Table renames are atomic and torn journal lines are skipped, so reading needs no lock
+        List<Integer> merged = new ArrayList<>();
+        readMergedTable(merged);
+        cache = merged;
+    }
+
+    // Fills the list with the top scores from the table and the journal; returns the journal entry count.
+    private static int readMergedTable(List<Integer> merged) {
+        List<Integer> all = new ArrayList<>();
+        readScores(new File(HIGH_SCORE_FILE), all);
+        int journalEntries = readScores(new File(JOURNAL_FILE), all);
+
         // Sort scores in descending order
-        Collections.sort(highScores, Collections.reverseOrder());
-        
+        Collections.sort(all, Collections.reverseOrder());
+
         // Limit to max number of high scores
-        while (highScores.size() > MAX_HIGH_SCORES) {
-            highScores.remove(highScores.size() - 1);
+        for (int i = 0; i < all.size() && i < MAX_HIGH_SCORES; i++) {
+            merged.add(all.get(i));
         }
-        
-        return highScores;
+        return journalEntries;
     }
-    
-    // Save high scores to file
-    public static void saveHighScores(List<Integer> highScores) {
-        try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(HIGH_SCORE_FILE));
-            for (Integer score : highScores) {
-                writer.write(score.toString());
-                writer.newLine();
+
+    // Appends the scores stored one per line in the file; returns how many were read.
+    private static int readScores(File file, List<Integer> scores) {
+        if (!file.exists()) return 0;
+
+        int read = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    scores.add(Integer.parseInt(line.trim()));
+                    read++;
+                } catch (NumberFormatException e) {
+                    // Skip invalid lines
+                }
             }
-            writer.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return read;
     }
-    
-    // Add a new score and save updated high scores
-    public static boolean addHighScore(int score) {
-        List<Integer> highScores = loadHighScores();
-        
-        // Check if the score qualifies as a high score
-        if (highScores.size() < MAX_HIGH_SCORES || score > highScores.get(highScores.size() - 1)) {
-            highScores.add(score);
-            Collections.sort(highScores, Collections.reverseOrder());
-            
-            // Limit to max number of high scores
-            while (highScores.size() > MAX_HIGH_SCORES) {
-                highScores.remove(highScores.size() - 1);
+
+    // Appends a batch of scores to the journal; the caller holds the file lock.
+    private static void appendToJournal(int[] batch) throws IOException {
+        StringBuilder lines = new StringBuilder(batch.length * 8);
+        for (int score : batch) {
+            lines.append(score).append(System.lineSeparator());
+        }
+        Files.writeString(Paths.get(JOURNAL_FILE), lines,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Atomically replaces the table file and truncates the journal; the caller holds the file lock.
+    private static void writeTable(List<Integer> highScores) throws IOException {
+        Path target = Paths.get(HIGH_SCORE_FILE);
+        Path temp = Paths.get(HIGH_SCORE_FILE + TEMP_SUFFIX);
+        try (BufferedWriter out = Files.newBufferedWriter(temp)) {
+            for (Integer score : highScores) {
+                out.write(score.toString());
+                out.newLine();
             }
-            
-            saveHighScores(highScores);
-            return true;
         }
-        
-        return false;
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // Everything in the journal is now part of the table
+        Files.deleteIfExists(Paths.get(JOURNAL_FILE));
     }
-    
+
+    // Opens the lock file shared by every process using this directory.
+    private static FileChannel openLockChannel() throws IOException {
+        return FileChannel.open(Paths.get(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
     // Create default high scores for a new file
-    private static void saveDefaultHighScores() {
+    private static List<Integer> defaultHighScores() {
         List<Integer> defaultScores = new ArrayList<>();
         defaultScores.add(5000);
         defaultScores.add(4000);
         defaultScores.add(3000);
         defaultScores.add(2000);
         defaultScores.add(1000);
-        saveHighScores(defaultScores);
-    }
-    
-    // Get rank of the score (1-based)
-    public static int getScoreRank(int score) {
-        List<Integer> highScores = loadHighScores();
-        for (int i = 0; i < highScores.size(); i++) {
-            if (score >= highScores.get(i)) {
-                return i + 1;
-            }
-        }
-        return highScores.size() + 1;
+        return defaultScores;
     }
 }
@@ -0,0 +1,118 @@
+// Import packages
+import java.util.concurrent.TimeUnit;
+
+// Fixed-capacity FIFO of timestamped direction presses. Presses arrive on the EDT between ticks and are
+// drained at the next tick boundary, so taps that land between two ticks are no longer overwritten.
+// The queue also measures input-to-display latency: the time from a key press to the first painted frame
+// that reflects it.
+public class InputQueue {
+    private static final int CAPACITY = 16;
+    // Presses older than this are stale by the time a tick sees them and are dropped
+    public static final long MAX_INPUT_AGE_NANOS = TimeUnit.MILLISECONDS.toNanos(300);
+
+    // Ring buffer stored as parallel primitive arrays
+    private final int[] directionX = new int[CAPACITY];
+    private final int[] directionY = new int[CAPACITY];
+    private final long[] pressTimes = new long[CAPACITY];
+    private int head = 0;
+    private int size = 0;
+
+    // Latency tracking
+    private long appliedInputTime = 0; // Timestamp of the input applied in the last tick, 0 if none is waiting
+    private long latencySamples = 0;
+    private long latencyTotalNanos = 0;
+    private long latencyMaxNanos = 0;
+    private long lastLatencyNanos = 0;
+
+    // Appends a press; when full the oldest press is discarded.
+    public void push(int dx, int dy, long timeNanos) {
+        if (size == CAPACITY) {
+            removeFirst(1);
+        }
+        int slot = (head + size) % CAPACITY;
+        directionX[slot] = dx;
+        directionY[slot] = dy;
+        pressTimes[slot] = timeNanos;
+        size++;
+    }
+
+    // Drops presses that are older than the maximum input age.
+    public void dropStale(long nowNanos) {
+        while (size > 0 && nowNanos - pressTimes[head] > MAX_INPUT_AGE_NANOS) {
+            removeFirst(1);
+        }
+    }
+
+    // Removes the given number of presses from the front of the queue.
+    public void removeFirst(int count) {
+        count = Math.min(count, size);
+        head = (head + count) % CAPACITY;
+        size -= count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Horizontal direction of the i-th oldest press
+    public int getDirectionX(int i) {
+        return directionX[(head + i) % CAPACITY];
+    }
+
+    // Vertical direction of the i-th oldest press
+    public int getDirectionY(int i) {
+        return directionY[(head + i) % CAPACITY];
+    }
+
+    // Press timestamp (System.nanoTime) of the i-th oldest press
+    public long getPressTime(int i) {
+        return pressTimes[(head + i) % CAPACITY];
+    }
+
+    // Discards all queued presses.
+    public void clear() {
+        head = 0;
+        size = 0;
+        appliedInputTime = 0;
+    }
+
+    // Records that a press was applied to the simulation and is waiting to be displayed.
+    public void markApplied(long pressTimeNanos) {
+        appliedInputTime = pressTimeNanos;
+    }
+
+    // Called after a frame is painted; closes the latency measurement for the last applied press.
+    public void markDisplayed(long nowNanos) {
+        if (appliedInputTime == 0) return;
+
+        lastLatencyNanos = nowNanos - appliedInputTime;
+        latencySamples++;
+        latencyTotalNanos += lastLatencyNanos;
+        latencyMaxNanos = Math.max(latencyMaxNanos, lastLatencyNanos);
+        appliedInputTime = 0;
+    }
+
+    // Number of presses whose latency has been measured
+    public long getLatencySamples() {
+        return latencySamples;
+    }
+
+    // Mean input-to-display latency in nanoseconds
+    public long getMeanLatencyNanos() {
+        return latencySamples == 0 ? 0 : latencyTotalNanos / latencySamples;
+    }
+
+    // Worst input-to-display latency in nanoseconds
+    public long getMaxLatencyNanos() {
+        return latencyMaxNanos;
+    }
+
+    // Most recent input-to-display latency in nanoseconds
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+}
@@ -0,0 +1,79 @@
+// Import packages
+import java.util.Arrays;
+
+// HDR-style log-linear histogram of durations in nanoseconds. Each power of two is split into 16
+// sub-buckets, giving about 6% precision from 1 ns to hours in a fixed array of under a thousand
+// counters. Recording and queries never allocate, so it can sit on the hot path it is measuring.
+// Not thread-safe; record from a single thread.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    // Records one duration in nanoseconds.
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[indexOf(nanos)]++;
+        totalCount++;
+        sum += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    // Clears all recorded values.
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    // Mean of the recorded values in nanoseconds (exact)
+    public long getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    // Largest recorded value in nanoseconds (exact)
+    public long getMax() {
+        return max;
+    }
+
+    // Value at the given quantile (0.0-1.0), to within one sub-bucket.
+    public long getPercentile(double quantile) {
+        if (totalCount == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    // Bucket index for a value: exact below 16, then 16 linear sub-buckets per power of two.
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that maps to the given bucket.
+    private static long highestValueIn(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS - 1 + SUB_BUCKET_BITS;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + subBucket * width + width - 1;
+    }
+}
@@ -0,0 +1,330 @@
+// Import packages
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.util.Arrays;
+
+// Leaderboard engine that keeps every submitted score and answers rank, percentile and top-K queries in
+// O(log n) time using a Fenwick (binary indexed) tree over fixed-width score buckets. Memory depends only on
+// the bucket count, not on how many scores were submitted, so ten million entries cost the same as ten.
+//
+// Persistence is an append-only log of raw scores plus a periodic snapshot of the bucket counts. Each
+// snapshot starts a new log generation; on load the snapshot is read and only its own log is replayed, so
+// a crash at any point during compaction neither loses nor double-counts scores.
+//
+// Several processes may share the same files. Every submission and compaction runs under an exclusive
+// FileChannel lock on a sidecar lock file, and first catches up on whatever other processes appended
+// (or reloads if one of them compacted), so no score is dropped. Open at most one instance per file set
+// in a JVM; file locks are held per process.
+public class Leaderboard {
+    // Every score in the game is a multiple of 10, so 10-point buckets lose no precision
+    public static final int BUCKET_WIDTH = 10;
+    // Scores above this land in the top bucket
+    public static final int MAX_TRACKED_SCORE = 2_000_000;
+    private static final int BUCKET_COUNT = MAX_TRACKED_SCORE / BUCKET_WIDTH + 1;
+
+    // Log entries accumulated before the counts are compacted into a new snapshot
+    private static final int COMPACT_THRESHOLD = 100_000;
+    private static final int SNAPSHOT_MAGIC = 0x4C425331; // "LBS1"
+
+    // Per-bucket counts, indexed so bucket 0 holds the highest scores
+    private final int[] counts = new int[BUCKET_COUNT];
+    // Fenwick tree over counts (1-based); prefix(i) = number of scores in the i highest buckets
+    private final long[] tree = new long[BUCKET_COUNT + 1];
+    private long total = 0;
+
+    private final String baseName;
+    private final FileChannel lockChannel;
+    private long generation = 0;
+    private FileChannel log;
+    private long logEntries = 0; // Log entries already reflected in the counts
+
+    // Opens (or creates) the leaderboard stored under the given base file name.
+    public Leaderboard(String baseName) throws IOException {
+        this.baseName = baseName;
+        this.lockChannel = FileChannel.open(Paths.get(baseName + ".lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.lock();
+        try {
+            load();
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Records a single score.
+    public void submit(int score) throws IOException {
+        submitAll(new int[] {score}, 1);
+    }
+
+    // Records a batch of scores with one lock acquisition and one log write.
+    public synchronized void submitAll(int[] scores, int count) throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            catchUp();
+
+            ByteBuffer buffer = ByteBuffer.allocate(count * Integer.BYTES);
+            for (int i = 0; i < count; i++) {
+                buffer.putInt(scores[i]);
+                add(scores[i]);
+            }
+            buffer.flip();
+            long position = logEntries * Integer.BYTES;
+            while (buffer.hasRemaining()) {
+                log.write(buffer, position + buffer.position());
+            }
+            logEntries += count;
+
+            if (logEntries >= COMPACT_THRESHOLD) {
+                compactLocked();
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Pulls in scores other processes recorded since this instance last looked.
+    public synchronized void refresh() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            catchUp();
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Total number of scores recorded
+    public synchronized long size() {
+        return total;
+    }
+
+    // Rank of the score among all recorded scores (1 = best); ties share a rank.
+    public synchronized long rank(int score) {
+        return prefix(indexOf(score) - 1) + 1;
+    }
+
+    // Percentage of recorded scores strictly lower than the given score (0-100).
+    public synchronized double percentile(int score) {
+        if (total == 0) return 100.0;
+        long lower = total - prefix(indexOf(score));
+        return 100.0 * lower / total;
+    }
+
+    // The k best scores, highest first (rounded down to the bucket width).
+    public synchronized int[] topK(int k) {
+        int n = (int) Math.min(k, total);
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = scoreOf(select(i + 1));
+        }
+        return result;
+    }
+
+    // Writes the current counts to a new snapshot and starts a fresh log generation.
+    public synchronized void compact() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            catchUp();
+            compactLocked();
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Compaction body; the caller holds the file lock and is caught up.
+    private void compactLocked() throws IOException {
+        long nextGeneration = generation + 1;
+        Path snapshot = snapshotPath();
+        Path temp = Paths.get(snapshot + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(nextGeneration);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (counts[i] != 0) {
+                    out.writeInt(i);
+                    out.writeInt(counts[i]);
+                }
+            }
+            out.writeInt(-1); // End marker
+        }
+        moveAtomically(temp, snapshot);
+
+        // The snapshot now covers the old log; switch generations and drop it
+        Path oldLog = logPath(generation);
+        log.close();
+        generation = nextGeneration;
+        openLog();
+        Files.deleteIfExists(oldLog);
+    }
+
+    // Closes the log and lock files.
+    public synchronized void close() throws IOException {
+        log.close();
+        lockChannel.close();
+    }
+
+    // Brings the counts up to date with the files; the caller holds the file lock.
+    private void catchUp() throws IOException {
+        if (readSnapshotGeneration() != generation) {
+            // Another process compacted; its snapshot supersedes everything we counted
+            log.close();
+            Arrays.fill(counts, 0);
+            Arrays.fill(tree, 0);
+            total = 0;
+            generation = 0;
+            logEntries = 0;
+            load();
+            return;
+        }
+
+        // Replay entries other processes appended to the current log
+        long available = log.size() / Integer.BYTES;
+        if (available > logEntries) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) ((available - logEntries) * Integer.BYTES));
+            long position = logEntries * Integer.BYTES;
+            while (buffer.hasRemaining()) {
+                int read = log.read(buffer, position + buffer.position());
+                if (read < 0) break;
+            }
+            buffer.flip();
+            while (buffer.remaining() >= Integer.BYTES) {
+                add(buffer.getInt());
+            }
+            logEntries = available;
+        }
+    }
+
+    // Generation recorded in the snapshot header, 0 if there is no snapshot yet.
+    private long readSnapshotGeneration() throws IOException {
+        Path snapshot = snapshotPath();
+        if (!Files.exists(snapshot)) return 0;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshot))) {
+            in.readInt();
+            return in.readLong();
+        }
+    }
+
+    // Loads the snapshot, replays the matching log generation and opens it for appending.
+    private void load() throws IOException {
+        Path snapshot = snapshotPath();
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a leaderboard snapshot: " + snapshot);
+                }
+                generation = in.readLong();
+                int bucket;
+                while ((bucket = in.readInt()) >= 0) {
+                    counts[bucket] = in.readInt();
+                    total += counts[bucket];
+                }
+            }
+        }
+
+        // Replay this generation's log
+        Path logFile = logPath(generation);
+        if (Files.exists(logFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+                long entries = Files.size(logFile) / Integer.BYTES;
+                for (long i = 0; i < entries; i++) {
+                    int bucket = indexOf(in.readInt()) - 1;
+                    counts[bucket]++;
+                    total++;
+                }
+            }
+        }
+        buildTree();
+        openLog();
+
+        // A log left over from an interrupted compaction is already part of the snapshot
+        if (generation > 0) {
+            Files.deleteIfExists(logPath(generation - 1));
+        }
+    }
+
+    // Opens the current generation's log for reading and writing, dropping any torn partial entry.
+    // Appends are positional writes at the end of the last whole entry, made while holding the file lock.
+    private void openLog() throws IOException {
+        log = FileChannel.open(logPath(generation),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long whole = log.size() / Integer.BYTES * Integer.BYTES;
+        if (whole != log.size()) {
+            log.truncate(whole);
+        }
+        logEntries = whole / Integer.BYTES;
+    }
+
+    // Builds the Fenwick tree from the bucket counts in linear time.
+    private void buildTree() {
+        for (int i = 1; i <= BUCKET_COUNT; i++) {
+            tree[i] += counts[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= BUCKET_COUNT) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    // Adds one score to the counts and the tree.
+    private void add(int score) {
+        int index = indexOf(score);
+        counts[index - 1]++;
+        total++;
+        for (int i = index; i <= BUCKET_COUNT; i += i & -i) {
+            tree[i]++;
+        }
+    }
+
+    // Number of scores in the first i buckets (the i highest score ranges).
+    private long prefix(int i) {
+        long sum = 0;
+        for (; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Smallest tree index whose prefix count reaches k (the bucket holding the k-th best score).
+    private int select(long k) {
+        int index = 0;
+        for (int step = Integer.highestOneBit(BUCKET_COUNT); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= BUCKET_COUNT && tree[next] < k) {
+                index = next;
+                k -= tree[next];
+            }
+        }
+        return index + 1;
+    }
+
+    // Tree index (1-based) of the bucket holding the score; higher scores get lower indices.
+    private static int indexOf(int score) {
+        int bucket = Math.max(0, Math.min(score, MAX_TRACKED_SCORE)) / BUCKET_WIDTH;
+        return BUCKET_COUNT - bucket;
+    }
+
+    // Lowest score in the bucket at the given tree index.
+    private static int scoreOf(int index) {
+        return (BUCKET_COUNT - index) * BUCKET_WIDTH;
+    }
+
+    private Path snapshotPath() {
+        return Paths.get(baseName + ".snapshot");
+    }
+
+    private Path logPath(long gen) {
+        return Paths.get(baseName + "-" + gen + ".log");
+    }
+
+    // Renames temp over target, atomically where the filesystem supports it.
+    private static void moveAtomically(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
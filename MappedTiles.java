@@ -0,0 +1,138 @@
+// Import packages
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Fixed-size tile blocks in a file, memory-mapped one tile at a time. Only recently used tiles stay mapped;
+// older ones are dropped and their pages left to the OS, so the mapped working set follows Pacman and the
+// ghosts around the maze instead of growing with it. Writable tiles track which of them changed and write
+// just those back on flush.
+//
+// Eviction is a clock sweep (second chance) rather than exact LRU. A hit only sets the tile's referenced
+// flag, and only when it is clear, so hits from many threads (ghosts move in parallel) share no counter and
+// take no lock. On a miss the clock hand walks the ring of hot tiles: it clears the flags it passes and
+// evicts the first tile whose flag was already clear. Each miss costs a few steps of the hand, not a scan of
+// every tile. Mapping and eviction are serialized. A buffer handed out before its tile was evicted stays
+// readable. Writes belong to a single thread; flush may run on another, and it writes back outside the lock,
+// so a slow disk never holds up mapping. An evicted tile that changed is written back on the next flush.
+public class MappedTiles {
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long baseOffset;
+    private final int blockSize;
+
+    private final AtomicReferenceArray<MappedByteBuffer> mapped;
+    private final AtomicIntegerArray referenced; // 1 if used since the clock hand last passed it
+    private final AtomicIntegerArray dirty; // 1 if written since the last flush
+    private final List<MappedByteBuffer> evictedDirty = new ArrayList<>(); // Dropped before they were flushed
+    private final int[] hot; // Ring of mapped tile indexes the clock hand sweeps
+    private int hotCount = 0;
+    private int hand = 0;
+
+    public MappedTiles(FileChannel channel, boolean writable, long baseOffset, int blockSize, int tileCount, int maxHotTiles) {
+        this.channel = channel;
+        this.mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        this.baseOffset = baseOffset;
+        this.blockSize = blockSize;
+        this.mapped = new AtomicReferenceArray<>(tileCount);
+        this.referenced = new AtomicIntegerArray(tileCount);
+        this.dirty = new AtomicIntegerArray(tileCount);
+        this.hot = new int[Math.max(1, Math.min(maxHotTiles, tileCount))];
+    }
+
+    // The tile's block, mapping it (and evicting a cold tile) if it is not hot.
+    public MappedByteBuffer tile(int index) {
+        MappedByteBuffer buffer = mapped.get(index);
+        if (buffer == null) {
+            buffer = mapIfCold(index);
+        }
+        markReferenced(index);
+        return buffer;
+    }
+
+    // Marks the tile for write-back on the next flush; call it after writing, so a flush that clears the
+    // mark also sees the write.
+    public void markDirty(int index) {
+        if (dirty.get(index) == 0) {
+            dirty.set(index, 1);
+        }
+    }
+
+    // Maps the tile ahead of use and asks the OS to read its pages in.
+    public void prefetch(int index) {
+        if (index < 0 || index >= mapped.length() || mapped.get(index) != null) return;
+        mapIfCold(index).load();
+        markReferenced(index);
+    }
+
+    // Writes every changed tile back to the file. Safe to call from another thread than the writer's.
+    public void flush() {
+        List<MappedByteBuffer> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(evictedDirty);
+            evictedDirty.clear();
+        }
+        for (MappedByteBuffer buffer : evicted) {
+            buffer.force();
+        }
+        for (int i = 0; i < mapped.length(); i++) {
+            MappedByteBuffer buffer = mapped.get(i);
+            if (buffer != null && dirty.get(i) != 0) {
+                dirty.set(i, 0); // Cleared first, so a write that lands during force() marks it again
+                buffer.force();
+            }
+        }
+    }
+
+    // Maps the tile unless another thread got there first.
+    private synchronized MappedByteBuffer mapIfCold(int index) {
+        MappedByteBuffer buffer = mapped.get(index);
+        return buffer != null ? buffer : map(index);
+    }
+
+    // Sets the tile's referenced flag; a plain read first, so hot tiles cost no write
+    private void markReferenced(int index) {
+        if (referenced.get(index) == 0) {
+            referenced.lazySet(index, 1);
+        }
+    }
+
+    private MappedByteBuffer map(int index) {
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(mode, baseOffset + (long) index * blockSize, blockSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map tile " + index, e);
+        }
+        int slot = hotCount < hot.length ? hotCount++ : evictSlot();
+        hot[slot] = index;
+        referenced.set(index, 0); // Second chance only once it is used
+        mapped.set(index, buffer);
+        return buffer;
+    }
+
+    // Sweeps the clock hand to a tile not used since its last pass, drops that tile (keeping it for the next
+    // flush if it changed) and returns its ring slot. Terminates within two laps: the first clears every flag.
+    private int evictSlot() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) % hot.length;
+            int index = hot[slot];
+            if (referenced.get(index) != 0) {
+                referenced.set(index, 0);
+                continue;
+            }
+            if (dirty.get(index) != 0) {
+                dirty.set(index, 0);
+                evictedDirty.add(mapped.get(index));
+            }
+            mapped.set(index, null);
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,706 @@
+// Import packages
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// An immutable maze layout loaded from a text file (see mazes/classic.maze for the format), together with
+// the data derived from it: which way each cell can be left, the pellet template and every cell's distance
+// to the ghost house exit.
+//
+// Deriving that data means a flood fill over the grid, so the result is cached next to the maze in a binary
+// sidecar (<maze>.bin) stamped with the SHA-256 of the maze text. Loading a maze whose text has not changed
+// reads the sidecar and skips both parsing and derivation; any edit to the text changes the hash and the
+// sidecar is rebuilt on the next load.
+//
+// The per-cell data is never held on the heap. The sidecar stores it in square tiles of TILE_CELLS x TILE_CELLS
+// cells, one fixed-size block per tile, and the maze maps those blocks on demand through MappedTiles. Only the
+// tiles around Pacman and the ghosts stay mapped, so a generated maze of millions of cells costs the same heap
+// as the classic one.
+public class Maze {
+    public static final String DEFAULT_MAZE = "mazes/classic.maze";
+
+    // Direction bits of the navigation mask
+    public static final int UP = 1;
+    public static final int RIGHT = 2;
+    public static final int DOWN = 4;
+    public static final int LEFT = 8;
+
+    // Per-cell flags
+    private static final byte WALL = 1;
+    private static final byte HOUSE = 2;
+    private static final byte PELLET = 4;
+    private static final byte POWER_PELLET = 8;
+
+    // Sidecar header
+    private static final int CACHE_MAGIC = 0x4D415A43; // "MAZC"
+    private static final int CACHE_VERSION = 3;
+    private static final int HASH_BYTES = 32;
+    private static final int PAGE_SIZE = 4096; // Tile blocks start on a page boundary
+
+    // Tile geometry. A tile block holds the cell flags, then the navigation masks, then the exit distances.
+    public static final int TILE_SHIFT = 6;
+    public static final int TILE_CELLS = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_CELLS - 1;
+    private static final int TILE_AREA = TILE_CELLS * TILE_CELLS;
+    private static final int MOVES_OFFSET = TILE_AREA;
+    private static final int DISTANCE_OFFSET = 2 * TILE_AREA;
+    private static final int TILE_BYTES = 6 * TILE_AREA; // 24 KB
+    // Ghost planning runs on every core at once, each thread on ghosts spread over its own part of the maze, so
+    // the hot set grows with the cores to hold the tiles around all of them
+    private static final int MAX_HOT_TILES = Math.max(64, 32 * Runtime.getRuntime().availableProcessors());
+
+    private final String path;
+    private final byte[] contentHash;
+    private final String name;
+    private final int width;
+    private final int height;
+    private final int pacmanX, pacmanY;
+    private final int[] ghostXs, ghostYs;
+    private final int houseMinX, houseMinY, houseMaxX, houseMaxY;
+    private final int exitX, exitY;
+    private final boolean[] tunnelRows;
+    private final int[] tunnelLeft, tunnelRight; // Side tunnel lengths on each wrapping row
+    private final int[] powerXs, powerYs;
+    private final int pelletCount;
+
+    // Derived per-cell data, tile by tile
+    private final FileChannel channel;
+    private final int tilesAcross;
+    private final int tilesDown;
+    private final MappedTiles tiles;
+
+    // Reads the header fields and maps the tiles that follow them.
+    private Maze(String path, byte[] contentHash, ByteBuffer header, FileChannel channel, long tilesOffset) {
+        this.path = path;
+        this.contentHash = contentHash;
+        byte[] nameBytes = new byte[header.getInt()];
+        header.get(nameBytes);
+        this.name = new String(nameBytes, StandardCharsets.UTF_8);
+        this.width = header.getInt();
+        this.height = header.getInt();
+        this.pacmanX = header.getInt();
+        this.pacmanY = header.getInt();
+        this.ghostXs = new int[header.getInt()];
+        this.ghostYs = new int[ghostXs.length];
+        for (int i = 0; i < ghostXs.length; i++) {
+            ghostXs[i] = header.getInt();
+            ghostYs[i] = header.getInt();
+        }
+        this.houseMinX = header.getInt();
+        this.houseMinY = header.getInt();
+        this.houseMaxX = header.getInt();
+        this.houseMaxY = header.getInt();
+        this.exitX = header.getInt();
+        this.exitY = header.getInt();
+        this.tunnelRows = new boolean[height];
+        for (int y = 0; y < height; y++) {
+            tunnelRows[y] = header.get() != 0;
+        }
+        this.powerXs = new int[header.getInt()];
+        this.powerYs = new int[powerXs.length];
+        for (int i = 0; i < powerXs.length; i++) {
+            powerXs[i] = header.getInt();
+            powerYs[i] = header.getInt();
+        }
+        this.pelletCount = header.getInt();
+
+        this.channel = channel;
+        this.tilesAcross = (width + TILE_MASK) >> TILE_SHIFT;
+        this.tilesDown = (height + TILE_MASK) >> TILE_SHIFT;
+        this.tiles = new MappedTiles(channel, false, tilesOffset, TILE_BYTES, tilesAcross * tilesDown, MAX_HOT_TILES);
+
+        // A side tunnel is the plain corridor between the edge of a wrapping row and its first junction
+        this.tunnelLeft = new int[height];
+        this.tunnelRight = new int[height];
+        for (int y = 0; y < height; y++) {
+            if (!tunnelRows[y]) continue;
+            while (tunnelLeft[y] < width && getMoves(tunnelLeft[y], y) == (LEFT | RIGHT)) {
+                tunnelLeft[y]++;
+            }
+            while (tunnelRight[y] < width - tunnelLeft[y]
+                    && getMoves(width - 1 - tunnelRight[y], y) == (LEFT | RIGHT)) {
+                tunnelRight[y]++;
+            }
+        }
+    }
+
+    // Loads the maze named by -Dpacman.maze, or the classic maze.
+    public static Maze loadDefault() {
+        String path = System.getProperty("pacman.maze", DEFAULT_MAZE);
+        try {
+            return load(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot load maze " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Loads a maze file, using its sidecar cache when the cache matches the file's contents.
+    public static Maze load(String path) throws IOException {
+        byte[] text = Files.readAllBytes(Paths.get(path));
+        byte[] hash = sha256(text);
+        Path cacheFile = Paths.get(path + ".bin");
+
+        Maze cached = openCache(path, cacheFile, hash);
+        if (cached != null) return cached;
+
+        Layout layout = parse(new String(text, StandardCharsets.UTF_8), path);
+        try {
+            layout.writeCache(cacheFile, hash);
+        } catch (IOException e) {
+            // The tiles have to live in a file; use a private one that is rebuilt next time
+            System.err.println("Error writing maze cache: " + e.getMessage());
+            cacheFile = Files.createTempFile("maze", ".bin");
+            cacheFile.toFile().deleteOnExit();
+            layout.writeCache(cacheFile, hash);
+        }
+        Maze maze = openCache(path, cacheFile, hash);
+        if (maze == null) throw new IOException("Cannot map maze cache " + cacheFile);
+        return maze;
+    }
+
+    // Maze file the layout was loaded from
+    public String getPath() {
+        return path;
+    }
+
+    // SHA-256 of the maze text, identifying this exact layout
+    public byte[] getContentHash() {
+        return contentHash.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // True for walls and anything outside the grid.
+    public boolean isWall(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return true;
+        return (cell(x, y) & WALL) != 0;
+    }
+
+    // True inside the ghost house rectangle.
+    public boolean isInHouse(int x, int y) {
+        return x >= houseMinX && x <= houseMaxX && y >= houseMinY && y <= houseMaxY;
+    }
+
+    // True if the row's left and right edges connect.
+    public boolean isTunnelRow(int y) {
+        return y >= 0 && y < height && tunnelRows[y];
+    }
+
+    // True for a cell of the side tunnels, where ghosts slow down.
+    public boolean isTunnel(int x, int y) {
+        return isTunnelRow(y) && (x < tunnelLeft[y] || x >= width - tunnelRight[y]);
+    }
+
+    // Wraps a column that stepped off either edge of a tunnel row; other columns are returned unchanged.
+    public int wrapX(int x, int y) {
+        if (!isTunnelRow(y)) return x;
+        if (x < 0) return width - 1;
+        if (x >= width) return 0;
+        return x;
+    }
+
+    // Directions (UP, RIGHT, DOWN, LEFT bits) that lead to an open cell, tunnels included.
+    public int getMoves(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return 0;
+        return tiles.tile(tileIndex(x, y)).get(MOVES_OFFSET + tileOffset(x, y));
+    }
+
+    // True for an open cell with more than two ways out.
+    public boolean isIntersection(int x, int y) {
+        return Integer.bitCount(getMoves(x, y)) > 2;
+    }
+
+    // Steps from the cell to the house exit along open cells, or -1 if it cannot be reached.
+    public int getExitDistance(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return -1;
+        return tiles.tile(tileIndex(x, y)).getInt(DISTANCE_OFFSET + tileOffset(x, y) * Integer.BYTES);
+    }
+
+    // True if the cell starts each level with a regular pellet.
+    public boolean hasPellet(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return false;
+        return (cell(x, y) & PELLET) != 0;
+    }
+
+    // Number of regular pellets in a fresh level
+    public int getPelletCount() {
+        return pelletCount;
+    }
+
+    public int getPowerPelletCount() {
+        return powerXs.length;
+    }
+
+    public int getPowerPelletX(int i) {
+        return powerXs[i];
+    }
+
+    public int getPowerPelletY(int i) {
+        return powerYs[i];
+    }
+
+    public int getPacmanStartX() {
+        return pacmanX;
+    }
+
+    public int getPacmanStartY() {
+        return pacmanY;
+    }
+
+    public int getGhostStartCount() {
+        return ghostXs.length;
+    }
+
+    public int getGhostStartX(int i) {
+        return ghostXs[i];
+    }
+
+    public int getGhostStartY(int i) {
+        return ghostYs[i];
+    }
+
+    // Ghost house rectangle, inclusive
+    public int getHouseMinX() {
+        return houseMinX;
+    }
+
+    public int getHouseMinY() {
+        return houseMinY;
+    }
+
+    public int getHouseMaxX() {
+        return houseMaxX;
+    }
+
+    public int getHouseMaxY() {
+        return houseMaxY;
+    }
+
+    // Cell a released ghost is placed on, just outside the house
+    public int getExitX() {
+        return exitX;
+    }
+
+    public int getExitY() {
+        return exitY;
+    }
+
+    public int getTilesAcross() {
+        return tilesAcross;
+    }
+
+    public int getTilesDown() {
+        return tilesDown;
+    }
+
+    // Tile holding the cell; tiles are numbered row by row.
+    public int tileIndex(int x, int y) {
+        return (y >> TILE_SHIFT) * tilesAcross + (x >> TILE_SHIFT);
+    }
+
+    // Cell's position within its tile.
+    public static int tileOffset(int x, int y) {
+        return ((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK);
+    }
+
+    // Maps the tile holding the cell and its eight neighbours ahead of use.
+    public void prefetchAround(int x, int y) {
+        int tileX = x >> TILE_SHIFT;
+        int tileY = y >> TILE_SHIFT;
+        for (int ty = Math.max(0, tileY - 1); ty <= Math.min(tilesDown - 1, tileY + 1); ty++) {
+            for (int tx = Math.max(0, tileX - 1); tx <= Math.min(tilesAcross - 1, tileX + 1); tx++) {
+                tiles.prefetch(ty * tilesAcross + tx);
+            }
+        }
+    }
+
+    // Fills words (TILE_AREA bits, by tile offset) with the tile's pellet template; returns how many are set.
+    public int pelletTemplate(int tile, long[] words) {
+        ByteBuffer block = tiles.tile(tile);
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            long word = 0;
+            for (int bit = 0; bit < 64; bit++) {
+                if ((block.get((i << 6) | bit) & PELLET) != 0) {
+                    word |= 1L << bit;
+                    count++;
+                }
+            }
+            words[i] = word;
+        }
+        return count;
+    }
+
+    // Releases the sidecar; the maze must not be used afterwards.
+    public void close() {
+        closeQuietly(channel);
+    }
+
+    private byte cell(int x, int y) {
+        return tiles.tile(tileIndex(x, y)).get(tileOffset(x, y));
+    }
+
+    // Parses the text format and derives the navigation data.
+    private static Layout parse(String text, String source) throws IOException {
+        String name = source;
+        int pacmanX = -1, pacmanY = -1;
+        List<int[]> ghosts = new ArrayList<>();
+        List<int[]> powers = new ArrayList<>();
+        List<Integer> tunnels = new ArrayList<>();
+        int[] house = null;
+        int[] exit = null;
+        List<String> rows = new ArrayList<>();
+
+        String[] lines = text.split("\r?\n");
+        boolean inGrid = false;
+        for (int lineNumber = 1; lineNumber <= lines.length; lineNumber++) {
+            String line = lines[lineNumber - 1];
+            if (inGrid) {
+                if (!line.isEmpty()) rows.add(line);
+                continue;
+            }
+
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\s+");
+            try {
+                switch (parts[0]) {
+                    case "name" -> name = line.substring(4).trim();
+                    case "pacman" -> {
+                        pacmanX = Integer.parseInt(parts[1]);
+                        pacmanY = Integer.parseInt(parts[2]);
+                    }
+                    case "ghost" -> ghosts.add(new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])});
+                    case "power" -> powers.add(new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])});
+                    case "tunnel" -> tunnels.add(Integer.parseInt(parts[1]));
+                    case "house" -> house = new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                        Integer.parseInt(parts[3]), Integer.parseInt(parts[4])};
+                    case "exit" -> exit = new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+                    case "grid" -> inGrid = true;
+                    default -> throw new IOException(source + ":" + lineNumber + ": unknown directive '" + parts[0] + "'");
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(source + ":" + lineNumber + ": malformed '" + parts[0] + "' directive");
+            }
+        }
+
+        // Check the layout is complete before deriving anything from it
+        if (rows.isEmpty()) throw new IOException(source + ": no grid");
+        int height = rows.size();
+        int width = rows.get(0).length();
+        for (int y = 0; y < height; y++) {
+            if (rows.get(y).length() != width) {
+                throw new IOException(source + ": grid row " + y + " is " + rows.get(y).length() + " wide, expected " + width);
+            }
+        }
+        if (pacmanX < 0) throw new IOException(source + ": missing 'pacman' directive");
+        if (ghosts.isEmpty()) throw new IOException(source + ": missing 'ghost' directive");
+        if (house == null) throw new IOException(source + ": missing 'house' directive");
+        if (exit == null) throw new IOException(source + ": missing 'exit' directive");
+
+        byte[] cells = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+            for (int x = 0; x < width; x++) {
+                char c = row.charAt(x);
+                if (c == '#') {
+                    cells[y * width + x] = WALL;
+                } else if (c != '.') {
+                    throw new IOException(source + ": unexpected '" + c + "' at " + x + "," + y);
+                }
+            }
+        }
+
+        boolean[] tunnelRows = new boolean[height];
+        for (int row : tunnels) {
+            if (row < 0 || row >= height) throw new IOException(source + ": tunnel row " + row + " outside the grid");
+            tunnelRows[row] = true;
+        }
+
+        int[] ghostXs = new int[ghosts.size()];
+        int[] ghostYs = new int[ghosts.size()];
+        for (int i = 0; i < ghostXs.length; i++) {
+            ghostXs[i] = ghosts.get(i)[0];
+            ghostYs[i] = ghosts.get(i)[1];
+        }
+        int[] powerXs = new int[powers.size()];
+        int[] powerYs = new int[powers.size()];
+        for (int i = 0; i < powerXs.length; i++) {
+            powerXs[i] = powers.get(i)[0];
+            powerYs[i] = powers.get(i)[1];
+        }
+
+        // House cells, then the pellet template: every open cell outside the house minus power pellets
+        for (int y = house[1]; y <= house[3]; y++) {
+            for (int x = house[0]; x <= house[2]; x++) {
+                if (x >= 0 && x < width && y >= 0 && y < height) {
+                    cells[y * width + x] |= HOUSE;
+                }
+            }
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if ((cells[i] & (WALL | HOUSE)) == 0) {
+                cells[i] |= PELLET;
+            }
+        }
+        for (int i = 0; i < powerXs.length; i++) {
+            int index = powerYs[i] * width + powerXs[i];
+            if (powerXs[i] >= 0 && powerXs[i] < width && powerYs[i] >= 0 && powerYs[i] < height && (cells[index] & HOUSE) == 0) {
+                cells[index] = (byte) ((cells[index] & ~PELLET) | POWER_PELLET);
+            }
+        }
+        int pelletCount = 0;
+        for (byte cell : cells) {
+            if ((cell & PELLET) != 0) pelletCount++;
+        }
+
+        byte[] moves = deriveMoves(cells, width, height, tunnelRows);
+        int[] exitDistance = deriveExitDistances(moves, width, height, exit[0], exit[1]);
+
+        return new Layout(name, width, height, pacmanX, pacmanY, ghostXs, ghostYs, house, exit[0], exit[1],
+            tunnelRows, powerXs, powerYs, cells, moves, exitDistance, pelletCount);
+    }
+
+    // Navigation mask for every open cell: the directions that step onto another open cell.
+    private static byte[] deriveMoves(byte[] cells, int width, int height, boolean[] tunnelRows) {
+        byte[] moves = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((cells[y * width + x] & WALL) != 0) continue;
+
+                int mask = 0;
+                if (y > 0 && (cells[(y - 1) * width + x] & WALL) == 0) mask |= UP;
+                if (y < height - 1 && (cells[(y + 1) * width + x] & WALL) == 0) mask |= DOWN;
+
+                int left = x > 0 ? x - 1 : tunnelRows[y] ? width - 1 : -1;
+                int right = x < width - 1 ? x + 1 : tunnelRows[y] ? 0 : -1;
+                if (left >= 0 && (cells[y * width + left] & WALL) == 0) mask |= LEFT;
+                if (right >= 0 && (cells[y * width + right] & WALL) == 0) mask |= RIGHT;
+                moves[y * width + x] = (byte) mask;
+            }
+        }
+        return moves;
+    }
+
+    // Breadth-first distances from the house exit over the navigation graph.
+    private static int[] deriveExitDistances(byte[] moves, int width, int height, int exitX, int exitY) {
+        int[] distance = new int[width * height];
+        Arrays.fill(distance, -1);
+        if (exitX < 0 || exitX >= width || exitY < 0 || exitY >= height) return distance;
+
+        // Each cell is queued at most once, so a flat array serves as the queue even for huge mazes
+        int[] queue = new int[width * height];
+        int head = 0;
+        int tail = 0;
+        distance[exitY * width + exitX] = 0;
+        queue[tail++] = exitY * width + exitX;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            int mask = moves[cell];
+            int[] next = {
+                (mask & UP) != 0 ? cell - width : -1,
+                (mask & DOWN) != 0 ? cell + width : -1,
+                (mask & LEFT) != 0 ? y * width + (x == 0 ? width - 1 : x - 1) : -1,
+                (mask & RIGHT) != 0 ? y * width + (x == width - 1 ? 0 : x + 1) : -1
+            };
+            for (int neighbour : next) {
+                if (neighbour >= 0 && distance[neighbour] < 0) {
+                    distance[neighbour] = distance[cell] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return distance;
+    }
+
+    // Maps the sidecar, or returns null if it is missing, damaged or was built from different text.
+    private static Maze openCache(String path, Path cacheFile, byte[] hash) {
+        if (!Files.exists(cacheFile)) return null;
+
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(cacheFile, StandardOpenOption.READ);
+            ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.BYTES + HASH_BYTES);
+            readFully(channel, prefix, 0);
+            if (prefix.getInt() != CACHE_MAGIC || prefix.getInt() != CACHE_VERSION) return closeQuietly(channel);
+            byte[] storedHash = new byte[HASH_BYTES];
+            prefix.get(storedHash);
+            if (!Arrays.equals(storedHash, hash)) return closeQuietly(channel);
+
+            ByteBuffer header = ByteBuffer.allocate(prefix.getInt());
+            readFully(channel, header, prefix.capacity());
+            long tilesOffset = alignToPage(prefix.capacity() + header.capacity());
+            Maze maze = new Maze(path, hash, header, channel, tilesOffset);
+            long expectedSize = tilesOffset + (long) maze.tilesAcross * maze.tilesDown * TILE_BYTES;
+            if (channel.size() != expectedSize) return closeQuietly(channel);
+            return maze;
+        } catch (IOException | RuntimeException e) {
+            return channel == null ? null : closeQuietly(channel);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException();
+        }
+        buffer.flip();
+    }
+
+    private static Maze closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    private static long alignToPage(long offset) {
+        return (offset + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    // A freshly parsed maze with its derived data still on the heap, row by row, until it is written out.
+    private static final class Layout {
+        private final String name;
+        private final int width, height;
+        private final int pacmanX, pacmanY;
+        private final int[] ghostXs, ghostYs;
+        private final int[] house;
+        private final int exitX, exitY;
+        private final boolean[] tunnelRows;
+        private final int[] powerXs, powerYs;
+        private final byte[] cells;
+        private final byte[] moves;
+        private final int[] exitDistance; // -1 where the exit cannot be reached
+        private final int pelletCount;
+
+        Layout(String name, int width, int height, int pacmanX, int pacmanY, int[] ghostXs, int[] ghostYs,
+               int[] house, int exitX, int exitY, boolean[] tunnelRows, int[] powerXs, int[] powerYs,
+               byte[] cells, byte[] moves, int[] exitDistance, int pelletCount) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.pacmanX = pacmanX;
+            this.pacmanY = pacmanY;
+            this.ghostXs = ghostXs;
+            this.ghostYs = ghostYs;
+            this.house = house;
+            this.exitX = exitX;
+            this.exitY = exitY;
+            this.tunnelRows = tunnelRows;
+            this.powerXs = powerXs;
+            this.powerYs = powerYs;
+            this.cells = cells;
+            this.moves = moves;
+            this.exitDistance = exitDistance;
+            this.pelletCount = pelletCount;
+        }
+
+        // Writes the sidecar through a temp file so a concurrent loader never sees half of it.
+        void writeCache(Path cacheFile, byte[] hash) throws IOException {
+            byte[] header = header();
+            Path temp = Paths.get(cacheFile + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer prefix = ByteBuffer.allocate(3 * Integer.BYTES + HASH_BYTES);
+                prefix.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).put(hash).putInt(header.length).flip();
+                writeFully(out, prefix);
+                writeFully(out, ByteBuffer.wrap(header));
+                out.position(alignToPage(prefix.capacity() + header.length));
+
+                // Tile-major: cells past the right or bottom edge of the maze are padding walls
+                ByteBuffer block = ByteBuffer.allocate(TILE_BYTES);
+                int tilesAcross = (width + TILE_MASK) >> TILE_SHIFT;
+                int tilesDown = (height + TILE_MASK) >> TILE_SHIFT;
+                for (int tileY = 0; tileY < tilesDown; tileY++) {
+                    for (int tileX = 0; tileX < tilesAcross; tileX++) {
+                        block.clear();
+                        for (int local = 0; local < TILE_AREA; local++) {
+                            int x = (tileX << TILE_SHIFT) | (local & TILE_MASK);
+                            int y = (tileY << TILE_SHIFT) | (local >> TILE_SHIFT);
+                            boolean inside = x < width && y < height;
+                            int index = y * width + x;
+                            block.put(local, inside ? cells[index] : WALL);
+                            block.put(MOVES_OFFSET + local, inside ? moves[index] : 0);
+                            block.putInt(DISTANCE_OFFSET + local * Integer.BYTES, inside ? exitDistance[index] : -1);
+                        }
+                        writeFully(out, block);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        // Everything but the per-cell data, in the order the Maze constructor reads it.
+        private byte[] header() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + height);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(nameBytes.length);
+                out.write(nameBytes);
+                out.writeInt(width);
+                out.writeInt(height);
+                out.writeInt(pacmanX);
+                out.writeInt(pacmanY);
+                out.writeInt(ghostXs.length);
+                for (int i = 0; i < ghostXs.length; i++) {
+                    out.writeInt(ghostXs[i]);
+                    out.writeInt(ghostYs[i]);
+                }
+                for (int bound : house) {
+                    out.writeInt(bound);
+                }
+                out.writeInt(exitX);
+                out.writeInt(exitY);
+                for (boolean tunnel : tunnelRows) {
+                    out.writeBoolean(tunnel);
+                }
+                out.writeInt(powerXs.length);
+                for (int i = 0; i < powerXs.length; i++) {
+                    out.writeInt(powerXs[i]);
+                    out.writeInt(powerYs[i]);
+                }
+                out.writeInt(pelletCount);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
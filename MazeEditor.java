@@ -0,0 +1,411 @@
+// Import packages
+import java.util.Arrays;
+
+// Editable copy of a maze's walls for the in-game editor, with everything the editor reports kept up to date
+// one toggle at a time: which open cells Pacman can reach from his spawn, how many pellets that leaves him,
+// which cells are dead ends, whether every tunnel row is open at both ends, and each cell's navigation mask.
+//
+// Connectivity is a union-find over component ids rather than cells; each open cell carries the id it was
+// labelled with. Opening a cell unions its neighbours' components. Closing one may split its component, so
+// breadth-first searches start from each open neighbour in lockstep: searches that run into each other are
+// still connected, and a search that runs dry has walled off a region, which alone gets a fresh id. The work
+// is bounded by the size of the smaller side of a split, not the maze. Only the cells around the toggle have
+// their masks, dead-end bits and tunnel state refreshed. Ghost house cells are fixed and left out.
+//
+// Holds a few bytes per cell on the heap, so opening the editor on a huge maze costs memory the game itself
+// does not. Not thread-safe; used on the EDT.
+public class MazeEditor {
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    private static final int[] DIRECTION_BITS = {Maze.UP, Maze.RIGHT, Maze.DOWN, Maze.LEFT};
+
+    private final Maze maze;
+    private final int width;
+    private final int height;
+    private final int spawn;
+    private final long[] walls;
+    private final long[] deadEnds;
+    private final boolean[] powerPellet;
+    private final byte[] moves;
+    private final int[] label; // Component id of each open cell, -1 for walls and the house
+    private boolean modified = false;
+
+    // Union-find over component ids, with each root's open cell and power pellet counts
+    private int[] parent = new int[64];
+    private int[] cellCount = new int[64];
+    private int[] powerCount = new int[64];
+    private int nextId = 0;
+    private int componentCount = 0;
+
+    private int deadEndCount = 0;
+    private int brokenTunnelCount = 0;
+
+    // Split search state, reused across toggles: visit stamps per cell and one queue per neighbour
+    private final int[] visited;
+    private int stamp = 0;
+    private final int[][] queues = new int[4][64];
+    private final int[] queueHead = new int[4];
+    private final int[] queueTail = new int[4];
+    private final int[] group = new int[4];
+
+    public MazeEditor(Maze maze) {
+        this.maze = maze;
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.spawn = maze.getPacmanStartY() * width + maze.getPacmanStartX();
+        int cells = width * height;
+        this.walls = new long[(cells + 63) >>> 6];
+        this.deadEnds = new long[walls.length];
+        this.powerPellet = new boolean[cells];
+        this.moves = new byte[cells];
+        this.label = new int[cells];
+        this.visited = new int[cells];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (maze.isWall(x, y)) setBit(walls, y * width + x, true);
+            }
+        }
+        for (int i = 0; i < maze.getPowerPelletCount(); i++) {
+            int x = maze.getPowerPelletX(i);
+            int y = maze.getPowerPelletY(i);
+            if (x >= 0 && x < width && y >= 0 && y < height) powerPellet[y * width + x] = true;
+        }
+
+        // One full labelling pass; every later change is incremental
+        Arrays.fill(label, -1);
+        for (int cell = 0; cell < cells; cell++) {
+            if (isOpen(cell) && label[cell] < 0) {
+                floodLabel(cell, newComponent());
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            refreshCell(cell);
+        }
+        for (int y = 0; y < height; y++) {
+            if (maze.isTunnelRow(y) && !isTunnelOpen(y)) brokenTunnelCount++;
+        }
+    }
+
+    // Flips a cell between wall and open path; returns false for cells the editor may not change.
+    public boolean toggle(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height || maze.isInHouse(x, y)) return false;
+        int cell = y * width + x;
+        boolean tunnelEdge = maze.isTunnelRow(y) && (x == 0 || x == width - 1);
+        if (tunnelEdge && !isTunnelOpen(y)) brokenTunnelCount--;
+
+        if (isWall(x, y)) {
+            setBit(walls, cell, false);
+            open(cell);
+        } else {
+            setBit(walls, cell, true);
+            close(cell);
+        }
+
+        if (tunnelEdge && !isTunnelOpen(y)) brokenTunnelCount++;
+        refreshCell(cell);
+        for (int d = 0; d < 4; d++) {
+            int neighbour = neighbour(cell, d);
+            if (neighbour >= 0) refreshCell(neighbour);
+        }
+        modified = true;
+        return true;
+    }
+
+    public boolean isWall(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return true;
+        return getBit(walls, y * width + x);
+    }
+
+    // True for an open cell in the same region as Pacman's spawn.
+    public boolean isReachable(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return false;
+        int cell = y * width + x;
+        return label[cell] >= 0 && label[spawn] >= 0 && find(label[cell]) == find(label[spawn]);
+    }
+
+    // True for an open cell with fewer than two ways out.
+    public boolean isDeadEnd(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return false;
+        return getBit(deadEnds, y * width + x);
+    }
+
+    // Directions (UP, RIGHT, DOWN, LEFT bits) that lead to an open cell, tunnels included.
+    public int getMoves(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) return 0;
+        return moves[y * width + x];
+    }
+
+    // Regular pellets Pacman can still get to: the open cells of his region minus its power pellets.
+    public int getReachablePellets() {
+        if (label[spawn] < 0) return 0;
+        int root = find(label[spawn]);
+        return cellCount[root] - powerCount[root];
+    }
+
+    // Separate open regions outside the house
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int getDeadEndCount() {
+        return deadEndCount;
+    }
+
+    // Tunnel rows walled off at either end
+    public int getBrokenTunnelCount() {
+        return brokenTunnelCount;
+    }
+
+    // True once any cell has been toggled.
+    public boolean isModified() {
+        return modified;
+    }
+
+    // Why the layout cannot be played yet, or null if it can.
+    public String getProblem() {
+        if (label[spawn] < 0) return "Pacman's spawn is walled in";
+        if (componentCount > 1) return (componentCount - 1) + " region(s) unreachable";
+        if (brokenTunnelCount > 0) return brokenTunnelCount + " tunnel(s) blocked";
+        return null;
+    }
+
+    // The edited layout in the maze text format, keeping every directive of the original.
+    public String toMazeText() {
+        StringBuilder out = new StringBuilder((width + 1) * height + 512);
+        out.append("name ").append(maze.getName()).append(" (edited)\n");
+        out.append("pacman ").append(maze.getPacmanStartX()).append(' ').append(maze.getPacmanStartY()).append('\n');
+        for (int i = 0; i < maze.getGhostStartCount(); i++) {
+            out.append("ghost ").append(maze.getGhostStartX(i)).append(' ').append(maze.getGhostStartY(i)).append('\n');
+        }
+        out.append("house ").append(maze.getHouseMinX()).append(' ').append(maze.getHouseMinY()).append(' ')
+            .append(maze.getHouseMaxX()).append(' ').append(maze.getHouseMaxY()).append('\n');
+        out.append("exit ").append(maze.getExitX()).append(' ').append(maze.getExitY()).append('\n');
+        for (int y = 0; y < height; y++) {
+            if (maze.isTunnelRow(y)) out.append("tunnel ").append(y).append('\n');
+        }
+        for (int i = 0; i < maze.getPowerPelletCount(); i++) {
+            out.append("power ").append(maze.getPowerPelletX(i)).append(' ').append(maze.getPowerPelletY(i)).append('\n');
+        }
+        out.append("grid\n");
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                out.append(isWall(x, y) ? '#' : '.');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    // Opens a cell as its own component, then merges it with every open neighbour's.
+    private void open(int cell) {
+        int id = newComponent();
+        label[cell] = id;
+        cellCount[id] = 1;
+        powerCount[id] = powerPellet[cell] ? 1 : 0;
+        for (int d = 0; d < 4; d++) {
+            int neighbour = neighbour(cell, d);
+            if (neighbour >= 0 && label[neighbour] >= 0) union(id, label[neighbour]);
+        }
+    }
+
+    // Closes a cell and splits off any region that was only connected through it.
+    private void close(int cell) {
+        int root = find(label[cell]);
+        label[cell] = -1;
+        cellCount[root]--;
+        if (powerPellet[cell]) powerCount[root]--;
+        if (cellCount[root] == 0) {
+            componentCount--;
+            return;
+        }
+
+        // One search per distinct open neighbour
+        int searches = 0;
+        stamp += 4;
+        for (int d = 0; d < 4; d++) {
+            int neighbour = neighbour(cell, d);
+            if (neighbour < 0 || label[neighbour] < 0 || visited[neighbour] >= stamp) continue;
+            visited[neighbour] = stamp + searches;
+            queues[searches][0] = neighbour;
+            queueHead[searches] = 0;
+            queueTail[searches] = 1;
+            group[searches] = searches;
+            searches++;
+        }
+        if (searches < 2) return;
+
+        // Advance every search one cell at a time until at most one group is still running
+        int running = searches;
+        boolean[] finished = new boolean[4];
+        while (running > 1) {
+            for (int s = 0; s < searches; s++) {
+                if (finished[groupOf(s)] || queueHead[s] == queueTail[s]) continue;
+                int current = queues[s][queueHead[s]++];
+                for (int d = 0; d < 4; d++) {
+                    int next = neighbour(current, d);
+                    if (next < 0 || label[next] < 0) continue;
+                    if (visited[next] >= stamp) {
+                        // Met another search: both sides are still connected
+                        int a = groupOf(s);
+                        int b = groupOf(visited[next] - stamp);
+                        if (a != b) {
+                            group[a] = b;
+                            running--;
+                        }
+                        continue;
+                    }
+                    visited[next] = stamp + s;
+                    push(s, next);
+                }
+            }
+
+            // A group whose searches have all run dry is cut off: move its cells to a new component
+            for (int s = 0; s < searches; s++) {
+                int g = groupOf(s);
+                if (finished[g] || running <= 1 || !groupExhausted(g, searches)) continue;
+                finished[g] = true;
+                running--;
+                int id = newComponent();
+                for (int t = 0; t < searches; t++) {
+                    if (groupOf(t) != g) continue;
+                    for (int i = 0; i < queueTail[t]; i++) {
+                        int moved = queues[t][i];
+                        label[moved] = id;
+                        cellCount[id]++;
+                        if (powerPellet[moved]) powerCount[id]++;
+                    }
+                }
+                cellCount[root] -= cellCount[id];
+                powerCount[root] -= powerCount[id];
+            }
+        }
+    }
+
+    private boolean groupExhausted(int g, int searches) {
+        for (int s = 0; s < searches; s++) {
+            if (groupOf(s) == g && queueHead[s] != queueTail[s]) return false;
+        }
+        return true;
+    }
+
+    private int groupOf(int search) {
+        while (group[search] != search) search = group[search];
+        return search;
+    }
+
+    private void push(int search, int cell) {
+        if (queueTail[search] == queues[search].length) {
+            queues[search] = Arrays.copyOf(queues[search], queues[search].length * 2);
+        }
+        queues[search][queueTail[search]++] = cell;
+    }
+
+    // Labels a whole region from one cell (only used for the initial pass).
+    private void floodLabel(int start, int id) {
+        int[] queue = queues[0];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        label[start] = id;
+        while (head < tail) {
+            int cell = queue[head++];
+            cellCount[id]++;
+            if (powerPellet[cell]) powerCount[id]++;
+            for (int d = 0; d < 4; d++) {
+                int next = neighbour(cell, d);
+                if (next >= 0 && isOpen(next) && label[next] < 0) {
+                    label[next] = id;
+                    if (tail == queue.length) queue = Arrays.copyOf(queue, queue.length * 2);
+                    queue[tail++] = next;
+                }
+            }
+        }
+        queues[0] = queue;
+    }
+
+    // Recomputes one cell's navigation mask and dead-end bit.
+    private void refreshCell(int cell) {
+        int mask = 0;
+        if (label[cell] >= 0) {
+            for (int d = 0; d < 4; d++) {
+                int next = neighbour(cell, d);
+                if (next >= 0 && label[next] >= 0) mask |= DIRECTION_BITS[d];
+            }
+        }
+        moves[cell] = (byte) mask;
+
+        boolean deadEnd = label[cell] >= 0 && Integer.bitCount(mask) < 2;
+        if (deadEnd != getBit(deadEnds, cell)) {
+            setBit(deadEnds, cell, deadEnd);
+            deadEndCount += deadEnd ? 1 : -1;
+        }
+    }
+
+    // Cell one step in direction d, across the tunnel on tunnel rows; -1 off the grid.
+    private int neighbour(int cell, int d) {
+        int x = cell % width + DX[d];
+        int y = cell / width + DY[d];
+        if (y < 0 || y >= height) return -1;
+        x = maze.wrapX(x, y);
+        if (x < 0 || x >= width) return -1;
+        return y * width + x;
+    }
+
+    // Open path outside the house, i.e. part of Pacman's graph.
+    private boolean isOpen(int cell) {
+        return !getBit(walls, cell) && !maze.isInHouse(cell % width, cell / width);
+    }
+
+    private boolean isTunnelOpen(int y) {
+        return !isWall(0, y) && !isWall(width - 1, y);
+    }
+
+    private int newComponent() {
+        if (nextId == parent.length) {
+            parent = Arrays.copyOf(parent, nextId * 2);
+            cellCount = Arrays.copyOf(cellCount, nextId * 2);
+            powerCount = Arrays.copyOf(powerCount, nextId * 2);
+        }
+        parent[nextId] = nextId;
+        cellCount[nextId] = 0;
+        powerCount[nextId] = 0;
+        componentCount++;
+        return nextId++;
+    }
+
+    private int find(int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]]; // Path halving
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return;
+        if (cellCount[rootA] < cellCount[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        cellCount[rootA] += cellCount[rootB];
+        powerCount[rootA] += powerCount[rootB];
+        componentCount--;
+    }
+
+    private static boolean getBit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+// Import packages
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Generates left-right symmetric 28x31 mazes in the text format Maze loads, with the layout rules the game
+ * relies on: the classic ghost house in the middle, wrap tunnels, corridors one cell wide, no dead ends and
+ * every open cell reachable from every other.
+ *
+ * A maze starts as a lattice of corridors between fixed junction rows and columns, and a seeded random share
+ * of the optional corridors is knocked out. A corridor is only removed if both of its junctions keep at least
+ * two ways out and the maze stays connected. Each row of the maze is one long, so the connectivity check is a
+ * flood fill of whole rows with shifts and masks, and the final rule check is a handful of bitwise operations
+ * per row. One maze takes well under a millisecond; batches are spread across a worker pool.
+ */
+public class MazeGenerator {
+    public static final int WIDTH = 28;
+    public static final int HEIGHT = 31;
+
+    // Junction rows, and junction columns of the left half (mirrored to WIDTH - 1 - x)
+    private static final int[] NODE_ROWS = {1, 5, 8, 11, 14, 17, 20, 23, 26, 29};
+    private static final int[] NODE_COLUMNS = {1, 6, 9, 12};
+    private static final int CENTER = NODE_COLUMNS.length; // Column index standing for the mirrored column 15
+
+    // Rows a tunnel may run along
+    private static final int[] TUNNEL_ROWS = {8, 14, 20};
+
+    // Ghost house: the frame, its door, the spawn cells and the exit cell above the door
+    private static final int HOUSE_MIN_X = 10, HOUSE_MIN_Y = 12, HOUSE_MAX_X = 17, HOUSE_MAX_Y = 16;
+    private static final int[][] GHOST_SPAWNS = {{11, 13}, {16, 13}, {11, 15}, {16, 15}};
+    private static final int EXIT_X = 14, EXIT_Y = 11;
+
+    private static final long ROW_MASK = (1L << WIDTH) - 1;
+
+    // A corridor between two junctions of the left half; a column index of CENTER crosses the middle
+    private static final class Edge {
+        final int row1, column1, row2, column2;
+        final boolean fixed;
+        boolean open = true;
+
+        Edge(int row1, int column1, int row2, int column2, boolean fixed) {
+            this.row1 = row1;
+            this.column1 = column1;
+            this.row2 = row2;
+            this.column2 = column2;
+            this.fixed = fixed;
+        }
+    }
+
+    // Generates one maze and returns its text.
+    public static String generate(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        boolean[] tunnels = new boolean[HEIGHT];
+        tunnels[TUNNEL_ROWS[random.nextInt(TUNNEL_ROWS.length)]] = true;
+        if (random.nextBoolean()) {
+            tunnels[TUNNEL_ROWS[random.nextInt(TUNNEL_ROWS.length)]] = true;
+        }
+
+        List<Edge> edges = lattice();
+        int[][] degree = new int[NODE_ROWS.length][NODE_COLUMNS.length];
+        for (Edge edge : edges) {
+            degree[edge.row1][edge.column1]++;
+            if (edge.column2 != CENTER) degree[edge.row2][edge.column2]++;
+        }
+        for (int r = 0; r < NODE_ROWS.length; r++) {
+            if (tunnels[NODE_ROWS[r]]) degree[r][0]++; // The tunnel is the outermost junction's extra way out
+        }
+
+        // Knock out a random share of the optional corridors, in random order
+        List<Edge> optional = new ArrayList<>();
+        for (Edge edge : edges) {
+            if (!edge.fixed) optional.add(edge);
+        }
+        for (int i = optional.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Edge swap = optional.get(i);
+            optional.set(i, optional.get(j));
+            optional.set(j, swap);
+        }
+        int toRemove = optional.size() * (30 + random.nextInt(26)) / 100;
+        long[] open = new long[HEIGHT];
+        for (Edge edge : optional) {
+            if (toRemove == 0) break;
+            if (degree[edge.row1][edge.column1] <= 2) continue;
+            if (edge.column2 != CENTER && degree[edge.row2][edge.column2] <= 2) continue;
+
+            edge.open = false;
+            rasterize(edges, tunnels, open);
+            if (!isConnected(open, tunnels)) {
+                edge.open = true;
+                continue;
+            }
+            degree[edge.row1][edge.column1]--;
+            if (edge.column2 != CENTER) degree[edge.row2][edge.column2]--;
+            toRemove--;
+        }
+
+        rasterize(edges, tunnels, open);
+        String problem = check(open, tunnels);
+        if (problem != null) {
+            throw new IllegalStateException("Generated maze " + seed + " breaks a layout rule: " + problem);
+        }
+        return format(seed, open, tunnels);
+    }
+
+    // Generates a maze into a scratch file and loads it.
+    public static Maze generateMaze(long seed) throws IOException {
+        Path file = scratchDirectory().resolve(String.format("generated-%016x.maze", seed));
+        Files.write(file, generate(seed).getBytes(StandardCharsets.UTF_8));
+        return Maze.load(file.toString());
+    }
+
+    // Writes count mazes (seeds seed, seed + 1, ...) into dir on the given number of threads.
+    public static void generateBatch(Path dir, int count, long seed, int workers) throws IOException, InterruptedException {
+        Files.createDirectories(dir);
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "maze-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // One task per worker, each taking every workers-th maze, so no task is too small to be worth it
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                int first = w;
+                tasks.add(pool.submit(() -> {
+                    for (int i = first; i < count; i += workers) {
+                        Path file = dir.resolve(String.format("maze-%05d.maze", i));
+                        Files.write(file, generate(seed + i).getBytes(StandardCharsets.UTF_8));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Maze generation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Every corridor of the full lattice, with the ones around the ghost house fixed or left out.
+    private static List<Edge> lattice() {
+        int houseRow = indexOf(NODE_ROWS, 14);
+        int ringTop = indexOf(NODE_ROWS, 11);
+        int ringBottom = indexOf(NODE_ROWS, 17);
+        int ringColumn = indexOf(NODE_COLUMNS, 9);
+        int innerColumn = indexOf(NODE_COLUMNS, 12);
+
+        List<Edge> edges = new ArrayList<>();
+        for (int r = 0; r < NODE_ROWS.length; r++) {
+            for (int c = 0; c < NODE_COLUMNS.length; c++) {
+                boolean inHouse = r == houseRow && c == innerColumn;
+                boolean ringRow = r == ringTop || r == ringBottom;
+
+                // Across to the next junction, or over the middle from the innermost one
+                if (!inHouse && !(r == houseRow && c + 1 == innerColumn)) {
+                    boolean fixed = ringRow && (c == ringColumn || c == innerColumn);
+                    edges.add(new Edge(r, c, r, c + 1 < NODE_COLUMNS.length ? c + 1 : CENTER, fixed));
+                }
+
+                // Down to the next junction row
+                if (r + 1 < NODE_ROWS.length && !(c == innerColumn && (r == ringTop || r == houseRow))) {
+                    boolean fixed = c == ringColumn && (r == ringTop || r == houseRow);
+                    edges.add(new Edge(r, c, r + 1, c, fixed));
+                }
+            }
+        }
+        return edges;
+    }
+
+    // Paints the open corridors, their mirror images, the tunnels and the house into one long per row.
+    private static void rasterize(List<Edge> edges, boolean[] tunnels, long[] open) {
+        Arrays.fill(open, 0);
+        for (Edge edge : edges) {
+            if (!edge.open) continue;
+            int x1 = NODE_COLUMNS[edge.column1];
+            int x2 = edge.column2 == CENTER ? WIDTH - 1 - x1 : NODE_COLUMNS[edge.column2];
+            int y1 = NODE_ROWS[edge.row1];
+            int y2 = NODE_ROWS[edge.row2];
+            long run = ((1L << (x2 - x1 + 1)) - 1) << x1;
+            for (int y = y1; y <= y2; y++) {
+                open[y] |= y == y1 || y == y2 ? run : 1L << x1;
+            }
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            if (tunnels[y]) open[y] |= 1L; // Column 0; the mirror adds column WIDTH - 1
+            open[y] |= Long.reverse(open[y]) >>> (Long.SIZE - WIDTH);
+        }
+
+        // House interior and door; the frame is whatever is left closed
+        for (int y = HOUSE_MIN_Y + 1; y < HOUSE_MAX_Y; y++) {
+            open[y] |= ((1L << (HOUSE_MAX_X - HOUSE_MIN_X - 1)) - 1) << (HOUSE_MIN_X + 1);
+        }
+        open[HOUSE_MIN_Y] |= 3L << (WIDTH / 2 - 1);
+    }
+
+    // Open cells Pacman can reach: everything outside the house rectangle.
+    private static long outsideHouse(long[] open, int y) {
+        if (y < HOUSE_MIN_Y || y > HOUSE_MAX_Y) return open[y];
+        return open[y] & ~(((1L << (HOUSE_MAX_X - HOUSE_MIN_X + 1)) - 1) << HOUSE_MIN_X);
+    }
+
+    // Flood fill over whole rows: each pass spreads every reached row sideways to the end of its runs and
+    // into the rows above and below, until nothing changes.
+    private static boolean isConnected(long[] open, boolean[] tunnels) {
+        long[] domain = new long[HEIGHT];
+        long[] reached = new long[HEIGHT];
+        int seedRow = -1;
+        for (int y = 0; y < HEIGHT; y++) {
+            domain[y] = outsideHouse(open, y);
+            if (seedRow < 0 && domain[y] != 0) seedRow = y;
+        }
+        if (seedRow < 0) return false;
+        reached[seedRow] = Long.lowestOneBit(domain[seedRow]);
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < HEIGHT; i++) {
+                    int y = pass == 0 ? i : HEIGHT - 1 - i;
+                    long grown = reached[y];
+                    if (y > 0) grown |= reached[y - 1];
+                    if (y < HEIGHT - 1) grown |= reached[y + 1];
+                    grown &= domain[y];
+                    if (grown == 0) continue;
+                    long previous;
+                    do {
+                        previous = grown;
+                        grown |= (grown << 1) | (grown >>> 1);
+                        if (tunnels[y]) grown |= wrap(grown);
+                        grown &= domain[y];
+                    } while (grown != previous);
+                    if (grown != reached[y]) {
+                        reached[y] = grown;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            if (reached[y] != domain[y]) return false;
+        }
+        return true;
+    }
+
+    // Checks every layout rule; returns what is wrong, or null.
+    private static String check(long[] open, boolean[] tunnels) {
+        for (int y = 0; y < HEIGHT; y++) {
+            if ((open[y] & ~ROW_MASK) != 0) return "row " + y + " is wider than the maze";
+            if ((y == 0 || y == HEIGHT - 1) && open[y] != 0) return "border row " + y + " is open";
+            long edges = 1L | (1L << (WIDTH - 1));
+            if (!tunnels[y] && (open[y] & edges) != 0) return "row " + y + " opens onto the edge without a tunnel";
+            if (open[y] != Long.reverse(open[y]) >>> (Long.SIZE - WIDTH)) return "row " + y + " is not symmetric";
+        }
+
+        for (int y = 1; y < HEIGHT - 1; y++) {
+            long here = outsideHouse(open, y);
+            long up = outsideHouse(open, y - 1);
+            long down = outsideHouse(open, y + 1);
+            long left = (here << 1) & ROW_MASK;
+            long right = here >>> 1;
+            if (tunnels[y]) {
+                left |= here >>> (WIDTH - 1);
+                right |= (here & 1L) << (WIDTH - 1);
+            }
+
+            // A cell needs at least two open neighbours; "any two of four" as pairwise ANDs
+            long twoWays = (up & down) | (up & left) | (up & right) | (down & left) | (down & right) | (left & right);
+            long deadEnds = here & ~twoWays;
+            if (deadEnds != 0) return "dead end at " + Long.numberOfTrailingZeros(deadEnds) + "," + y;
+
+            long wide = here & (here >>> 1) & down & (down >>> 1);
+            if (wide != 0) return "corridor wider than one cell at " + Long.numberOfTrailingZeros(wide) + "," + y;
+        }
+
+        return isConnected(open, tunnels) ? null : "not every open cell is reachable";
+    }
+
+    // Bits that cross the tunnel: column 0 to WIDTH - 1 and back.
+    private static long wrap(long row) {
+        return ((row & 1L) << (WIDTH - 1)) | (row >>> (WIDTH - 1) & 1L);
+    }
+
+    // The maze in the text format, with spawns and power pellets placed on the nearest open cells.
+    private static String format(long seed, long[] open, boolean[] tunnels) {
+        StringBuilder out = new StringBuilder(2048);
+        out.append("# Generated by MazeGenerator from seed ").append(seed).append('\n');
+        out.append("name Generated ").append(Long.toHexString(seed)).append('\n');
+        int[] pacman = nearestOpen(open, WIDTH / 2, 23);
+        out.append("pacman ").append(pacman[0]).append(' ').append(pacman[1]).append('\n');
+        for (int[] spawn : GHOST_SPAWNS) {
+            out.append("ghost ").append(spawn[0]).append(' ').append(spawn[1]).append('\n');
+        }
+        out.append("house ").append(HOUSE_MIN_X).append(' ').append(HOUSE_MIN_Y).append(' ')
+            .append(HOUSE_MAX_X).append(' ').append(HOUSE_MAX_Y).append('\n');
+        out.append("exit ").append(EXIT_X).append(' ').append(EXIT_Y).append('\n');
+        for (int y = 0; y < HEIGHT; y++) {
+            if (tunnels[y]) out.append("tunnel ").append(y).append('\n');
+        }
+        for (int targetY : new int[]{3, HEIGHT - 8}) {
+            int[] power = nearestOpen(open, 1, targetY);
+            out.append("power ").append(power[0]).append(' ').append(power[1]).append('\n');
+            out.append("power ").append(WIDTH - 1 - power[0]).append(' ').append(power[1]).append('\n');
+        }
+        out.append("grid\n");
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                out.append((open[y] >>> x & 1L) != 0 ? '.' : '#');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    // Open cell outside the house closest to the target (ties go to the lower row, then the lower column).
+    private static int[] nearestOpen(long[] open, int targetX, int targetY) {
+        int[] best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int y = 0; y < HEIGHT; y++) {
+            long row = outsideHouse(open, y);
+            for (int x = 0; x < WIDTH; x++) {
+                int distance = Math.abs(x - targetX) + Math.abs(y - targetY);
+                if ((row >>> x & 1L) != 0 && distance < bestDistance) {
+                    best = new int[]{x, y};
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return i;
+        }
+        throw new IllegalArgumentException(value + " is not a junction");
+    }
+
+    private static Path scratch;
+
+    // Temp directory for mazes generated in play; removed with everything derived from them at exit.
+    private static synchronized Path scratchDirectory() throws IOException {
+        if (scratch == null) {
+            Path dir = Files.createTempDirectory("pacman-mazes");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (Stream<Path> files = Files.list(dir)) {
+                    files.forEach(file -> file.toFile().delete());
+                } catch (IOException ignored) {
+                }
+                dir.toFile().delete();
+            }, "maze-scratch-cleanup"));
+            scratch = dir;
+        }
+        return scratch;
+    }
+
+    // Usage: java MazeGenerator <output dir> <count> [seed] [workers]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java MazeGenerator <output dir> <count> [seed] [workers]");
+            System.exit(1);
+        }
+        Path dir = Paths.get(args[0]);
+        int count = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        generateBatch(dir, count, seed, workers);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Generated %d mazes in %.2fs (%.0f per second, %d workers)%n", count, seconds, count / seconds, workers);
+    }
+}
@@ -8,9 +8,21 @@ import java.util.Map;
 import javax.imageio.ImageIO;
 
 // Pacman class represents the player-controlled character in a Pacman game. It Hhndles movement, animation, collision detection, and rendering.
+//
+// Pacman moves in fixed point (see SubCell): he is on his way from cell (x, y) to the next cell along his
+// direction, progress units of the way there. Direction changes are taken at cell centres, except that he can
+// reverse at any moment and can take a turn up to a quarter cell before the centre, cutting the corner.
 public class Pacman {
-    // Position coordinates on the game grid
+    // Speed: one cell per 120 ms, the pace of the original one-cell-per-tick game
+    private static final double CELLS_PER_SECOND = 1000 / 120.0;
+    private static final int CORNER_WINDOW = SubCell.ONE / 4;
+    private static final long ANIMATION_MILLIS = 240; // Mouth animation frame length
+
+    // Position coordinates on the game grid: the cell he is at or leaving
     private int x, y;
+    private int progress; // Fixed-point distance travelled from (x, y) towards the next cell
+    private final int step; // Fixed-point distance per tick
+    private int fromX, fromY; // Fixed-point position at the start of the last move, for swept collisions
     
     // Current movement direction (-1, 0, or 1 for each axis)
     private int dx, dy;
@@ -29,19 +41,24 @@ public class Pacman {
     
     // Animation frame control
     private int animationFrame = 0;
-    private static final int ANIMATION_DELAY = 2; // Frames to wait between animation updates
+    private final int animationDelay; // Ticks to wait between animation updates
     private int animationCounter = 0;
     
     // Buffered input - stores the next desired direction
     private int nextDx, nextDy;
     
-    // Maze dimensions constant
-    private static final int MAZE_WIDTH = 28;
+    // Maze Pacman moves through
+    private Maze maze;
 
-    // Constructor initializes Pacman at the specified grid position
-    public Pacman(int x, int y) {
-        this.x = x;
-        this.y = y;
+    // Constructor initializes Pacman at the maze's spawn position, moving at the same pace whatever the tick rate
+    public Pacman(Maze maze, int tickRate) {
+        this.maze = maze;
+        this.step = SubCell.step(CELLS_PER_SECOND, tickRate);
+        this.animationDelay = (int) Math.max(1, ANIMATION_MILLIS * tickRate / 1000);
+        this.x = maze.getPacmanStartX();
+        this.y = maze.getPacmanStartY();
+        this.fromX = getFixedX();
+        this.fromY = getFixedY();
         this.dx = 0;  // Start stationary
         this.dy = 0;
         this.nextDx = 0;  // No queued movement initially
@@ -85,73 +102,83 @@ public class Pacman {
     }
 
     // Handles Pacman's movement logic including collision detection and tunnel teleportation.
-    public void move(int[][] maze) {
-        // First, try to move in the desired direction (buffered input)
-        int newX = x + nextDx;
-        int newY = y + nextDy;
-
-        // Handle horizontal tunnel teleportation at row 14
-        if (newX < 0 && y == 14) { // Exiting left side of maze
-            newX = MAZE_WIDTH - 1;  // Teleport to right side
-        } else if (newX >= MAZE_WIDTH && y == 14) { // Exiting right side of maze
-            newX = 0;  // Teleport to left side
-        }
+    public void move() {
+        fromX = getFixedX();
+        fromY = getFixedY();
 
-        // If the desired direction is valid, move there and update current direction
-        if (isValidMove(newX, newY, maze)) {
-            x = newX;
-            y = newY;
-            dx = nextDx;  // Apply the buffered direction
+        // Reversing needs no cell centre: turn round and head back to the cell just left
+        if (progress > 0 && nextDx == -dx && nextDy == -dy) {
+            x = maze.wrapX(x + dx, y);
+            y += dy;
+            dx = nextDx;
             dy = nextDy;
-        } else {
-            // If desired direction is blocked, try to continue in current direction
-            newX = x + dx;
-            newY = y + dy;
-
-            // Handle tunnel teleportation for current direction movement
-            if (newX < 0 && y == 14) { // Left tunnel
-                newX = MAZE_WIDTH - 1;
-            } else if (newX >= MAZE_WIDTH && y == 14) { // Right tunnel
-                newX = 0;
+            progress = SubCell.ONE - progress;
+        }
+
+        int remaining = step;
+        while (remaining > 0) {
+            if (progress == 0) {
+                // At a cell centre: take the desired direction (buffered input) if it is open, otherwise keep
+                // going the current way (allows smooth movement along corridors), otherwise stop
+                if ((nextDx != 0 || nextDy != 0) && canStep(x, y, nextDx, nextDy)) {
+                    dx = nextDx;  // Apply the buffered direction
+                    dy = nextDy;
+                } else if ((dx == 0 && dy == 0) || !canStep(x, y, dx, dy)) {
+                    dx = 0;
+                    dy = 0;
+                    break;
+                }
+            } else if (nextDx * dx + nextDy * dy == 0 && (nextDx != 0 || nextDy != 0)
+                    && SubCell.ONE - progress <= CORNER_WINDOW
+                    && canStep(maze.wrapX(x + dx, y), y + dy, nextDx, nextDy)) {
+                // Cornering: near enough the next centre to take the turn now, skipping the rest of the step
+                x = maze.wrapX(x + dx, y);
+                y += dy;
+                progress = 0;
+                continue;
             }
-            
-            // Move in current direction if valid (allows smooth movement along corridors)
-            if (isValidMove(newX, newY, maze)) {
-                x = newX;
-                y = newY;
+
+            int advance = Math.min(remaining, SubCell.ONE - progress);
+            progress += advance;
+            remaining -= advance;
+            if (progress == SubCell.ONE) {
+                // Stepping off either edge of a tunnel row teleports to the other side
+                x = maze.wrapX(x + dx, y);
+                y += dy;
+                progress = 0;
             }
-            // If neither direction is valid, Pacman stops moving
         }
         
         // Update animation frame for sprite cycling
         animationCounter++;
-        if (animationCounter >= ANIMATION_DELAY) {
+        if (animationCounter >= animationDelay) {
             animationFrame = (animationFrame + 1) % 3;  // Cycle through 3 frames
             animationCounter = 0;
         }
     }
 
+    // True if Pacman could act on the direction now: turn round, or step that way from the cell he is heading for.
+    public boolean canMove(int dirX, int dirY) {
+        if (progress > 0 && dirX == -dx && dirY == -dy) return true;
+        int headingX = progress > 0 ? maze.wrapX(x + dx, y) : x;
+        int headingY = progress > 0 ? y + dy : y;
+        return canStep(headingX, headingY, dirX, dirY);
+    }
+
+    private boolean canStep(int fromCellX, int fromCellY, int dirX, int dirY) {
+        return isValidMove(maze.wrapX(fromCellX + dirX, fromCellY), fromCellY + dirY);
+    }
+
     // Checks if a move to the specified coordinates is valid. Handles boundary checking, wall collision, and ghost safe zone restrictions.
-    private boolean isValidMove(int newX, int newY, int[][] maze) {
-        // Special case: allow movement into tunnel areas at row 14
-        if ((newX < 0 || newX >= maze[0].length) && y == 14) {
-            return true; // Tunnel movement is always valid
-        }
-        
-        // Check basic boundary conditions
-        if (newX < 0 || newX >= maze[0].length || newY < 0 || newY >= maze.length) {
-            return false;
-        }
-        
+    private boolean isValidMove(int newX, int newY) {
         // Prevent Pacman from entering the ghost safe zone (center box)
         // This is typically where ghosts respawn and Pacman shouldn't enter
-        boolean isMovingToSafeZone = (newY >= 12 && newY <= 16 && newX >= 11 && newX <= 17);
-        if (isMovingToSafeZone) {
+        if (maze.isInHouse(newX, newY)) {
             return false; // Block movement into ghost safe area
         }
         
-        // Check if the target cell is not a wall (1 = wall, 0 = empty space)
-        return maze[newY][newX] != 1;
+        // Walls and anything outside the grid block movement
+        return !maze.isWall(newX, newY);
     }
 
     // Renders Pacman on the screen using either sprite images or fallback graphics.
@@ -159,15 +186,16 @@ public class Pacman {
         // Try to use loaded sprite images first
         if (directionImages.containsKey(currentDirection)) {
             BufferedImage[] frames = directionImages.get(currentDirection);
-            // Draw the current animation frame at Pacman's grid position
-            g2d.drawImage(frames[animationFrame], x * cellSize, y * cellSize, cellSize, cellSize, null);
+            // Draw the current animation frame at Pacman's position between cells
+            g2d.drawImage(frames[animationFrame], SubCell.toPixels(getFixedX(), cellSize),
+                SubCell.toPixels(getFixedY(), cellSize), cellSize, cellSize, null);
         } else {
             // Fallback to drawing a simple yellow arc if images failed to load
             g2d.setColor(Color.YELLOW);
             int startAngle = currentDirection * 90;  // Rotate based on direction
             int arcAngle = 360 - mouthAngle * 2;     // Create mouth opening
-            g2d.fillArc(x * cellSize, y * cellSize, cellSize, cellSize, 
-                        startAngle + mouthAngle, arcAngle);
+            g2d.fillArc(SubCell.toPixels(getFixedX(), cellSize), SubCell.toPixels(getFixedY(), cellSize),
+                        cellSize, cellSize, startAngle + mouthAngle, arcAngle);
         }
     }
 
@@ -181,6 +209,29 @@ public class Pacman {
         return y;
     }
     
+    // Fixed-point position, between cells while moving
+    public int getFixedX() {
+        return (x << SubCell.SHIFT) + dx * progress;
+    }
+
+    public int getFixedY() {
+        return (y << SubCell.SHIFT) + dy * progress;
+    }
+
+    // Fixed-point position at the start of the last move
+    public int getFromX() {
+        return fromX;
+    }
+
+    public int getFromY() {
+        return fromY;
+    }
+
+    // Fixed-point distance covered per tick
+    public int getStep() {
+        return step;
+    }
+
     // Current horizontal movement direction (-1, 0, or 1)
     public int getDirectionX() {
         return dx;
@@ -191,15 +242,24 @@ public class Pacman {
         return dy;
     }
 
+    // Moves Pacman into a different maze, at its spawn position.
+    public void setMaze(Maze maze) {
+        this.maze = maze;
+        reset();
+    }
+
     // Resets Pacman to the starting position and state.
     public void reset() {
-        // Reset to starting position (center-bottom of maze)
-        this.x = 14; // Horizontal center of the 28-wide maze
-        this.y = 23; // Near the bottom of the maze
+        // Reset to the maze's starting position
+        this.x = maze.getPacmanStartX();
+        this.y = maze.getPacmanStartY();
         this.dx = 0;     // Stop all movement
         this.dy = 0;
+        this.progress = 0;
         this.nextDx = 0; // Clear buffered input
         this.nextDy = 0;
         this.currentDirection = 0; // Face right by default
+        this.fromX = getFixedX();
+        this.fromY = getFixedY();
     }
 }
@@ -54,7 +54,8 @@ public class PacmanGame extends JFrame {
             @Override
             public void keyPressed(KeyEvent e) {
                 if (gameStarted) {
-                    gameBoard.handleKeyPress(e.getKeyCode());
+                    // Stamp the press on arrival so input latency can be measured end to end
+                    gameBoard.queueKeyPress(e.getKeyCode(), System.nanoTime());
                 }
             }
         });
@@ -201,7 +202,7 @@ public class PacmanGame extends JFrame {
     private StatsPanel statsPanel;
 
     // Inner class for the stats panel at the bottom
-    class StatsPanel extends JPanel {
+    class StatsPanel extends JPanel implements GameEventBus.Listener {
         private int score = 0;
         private int lives = 3;
         private int level = 1;
@@ -212,7 +213,14 @@ public class PacmanGame extends JFrame {
             setBackground(Color.BLACK);
         }
         
+        @Override
+        public void onSnapshot(GameEventBus.Snapshot snapshot) {
+            updateStats(snapshot.getScore(), snapshot.getLives(), snapshot.getLevel());
+        }
+
+        // Repaints only when one of the displayed values actually changed
         public void updateStats(int score, int lives, int level) {
+            if (score == this.score && lives == this.lives && level == this.level) return;
             this.score = score;
             this.lives = lives;
             this.level = level;
@@ -269,6 +277,12 @@ public class PacmanGame extends JFrame {
     public static void main(String[] args) {
         // Ensure the font is loaded before creating the UI
         FontManager.RETRO_FONT.getFamily(); // This forces the static block to execute
+
+        // Report freezes of the event dispatch thread with stack samples
+        EdtWatchdog.start();
+
+        // Serve counters on loopback if -Dpacman.metrics.port is set
+        GameMetrics.startIfConfigured();
         
         EventQueue.invokeLater(() -> {
             try {
@@ -0,0 +1,265 @@
+// Import packages
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Which cells still hold a regular pellet, one bit per cell, kept in a memory-mapped file next to the maze
+// (<maze>.<player>.pellets). The bits are laid out in the maze's tiles, so the tiles around Pacman are the
+// only ones mapped, eating a pellet dirties one small block, and flush() writes back just the blocks that
+// changed. The write-back runs on a background thread, so the board can flush from the game thread without
+// waiting on the disk; only close() writes back in the caller. Because the file outlives the process, a level that was interrupted resumes where it stopped: the
+// header keeps the rest of the level's state (score, lives, level number and which power pellets are left)
+// next to the pellet count, and the board updates it every tick.
+//
+// A second board on the same file (another window) would fight over the bits, so the file is locked; whoever
+// loses the lock plays on a private temp file instead. Boards with no player (headless runs) always do, so
+// they neither resume nor overwrite anybody's saved level.
+public class PelletGrid {
+    private static final int MAGIC = 0x50454C54; // "PELT"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4096;
+    private static final int REMAINING_OFFSET = 8;
+    private static final int SAVED_OFFSET = 12;
+    private static final int HASH_OFFSET = 16; // SHA-256 of the maze text
+    private static final int SCORE_OFFSET = 48;
+    private static final int LIVES_OFFSET = 52;
+    private static final int LEVEL_OFFSET = 56;
+    private static final int POWER_OFFSET = 60; // One byte per power pellet, 1 while it is still there
+    private static final int MAX_POWER_PELLETS = HEADER_BYTES - POWER_OFFSET;
+    private static final int WORDS_PER_TILE = Maze.TILE_CELLS * Maze.TILE_CELLS / 64;
+    private static final int TILE_BYTES = WORDS_PER_TILE * Long.BYTES; // 512 bytes
+    private static final int MAX_HOT_TILES = 64;
+
+    // Grids waiting for the writer thread, each at most once; offering never allocates on the game thread
+    private static final BlockingQueue<PelletGrid> flushQueue = new ArrayBlockingQueue<>(16);
+
+    static {
+        Thread writer = new Thread(PelletGrid::writeBack, "pellet-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private final Maze maze;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedTiles tiles;
+    private final long[] template = new long[WORDS_PER_TILE];
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private boolean resumable;
+
+    // Opens the player's pellet file for the maze, or a private temp file if player is null.
+    public PelletGrid(Maze maze, String player) {
+        this.maze = maze;
+        int tileCount = maze.getTilesAcross() * maze.getTilesDown();
+        long size = HEADER_BYTES + (long) tileCount * TILE_BYTES;
+        try {
+            this.channel = player == null ? openPrivate()
+                : open(Paths.get(maze.getPath() + "." + player.replaceAll("[^A-Za-z0-9_-]", "_") + ".pellets"));
+
+            // Size the file before mapping it; a mapping past the end of the file faults on access
+            boolean sized = channel.size() == size;
+            if (channel.size() > size) {
+                channel.truncate(size);
+            } else if (!sized) {
+                channel.write(ByteBuffer.allocate(1), size - 1);
+            }
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+
+            // Saved progress only counts if it was left on this exact maze; otherwise the tiles are refilled
+            // before first use, so whatever they hold now does not matter
+            resumable = sized && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                && header.getInt(SAVED_OFFSET) != 0 && sameMaze(maze.getContentHash());
+            if (!resumable) {
+                header.putInt(0, MAGIC).putInt(4, VERSION).putInt(REMAINING_OFFSET, 0).putInt(SAVED_OFFSET, 0);
+                header.put(HASH_OFFSET, maze.getContentHash());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open pellet file", e);
+        }
+        this.tiles = new MappedTiles(channel, true, HEADER_BYTES, TILE_BYTES, tileCount, MAX_HOT_TILES);
+    }
+
+    // True if the cell still holds a pellet (false outside the grid).
+    public boolean has(int x, int y) {
+        if (x < 0 || x >= maze.getWidth() || y < 0 || y >= maze.getHeight()) return false;
+        int offset = Maze.tileOffset(x, y);
+        long word = tiles.tile(maze.tileIndex(x, y)).getLong((offset >>> 6) * Long.BYTES);
+        return (word & (1L << offset)) != 0;
+    }
+
+    // Removes the pellet from the cell; returns true if there was one.
+    public boolean eat(int x, int y) {
+        if (!has(x, y)) return false;
+        int offset = Maze.tileOffset(x, y);
+        int index = maze.tileIndex(x, y);
+        MappedByteBuffer tile = tiles.tile(index);
+        int position = (offset >>> 6) * Long.BYTES;
+        tile.putLong(position, tile.getLong(position) & ~(1L << offset));
+        tiles.markDirty(index);
+        header.putInt(REMAINING_OFFSET, header.getInt(REMAINING_OFFSET) - 1);
+        return true;
+    }
+
+    // Pellets left in the level
+    public int getRemaining() {
+        return header.getInt(REMAINING_OFFSET);
+    }
+
+    // True, once, if the file holds an unfinished level from an earlier run; refill() otherwise. After true,
+    // the getSaved methods and restorePowerPellets give back the rest of that level's state.
+    public boolean resumeSavedLevel() {
+        boolean resume = resumable && getRemaining() > 0;
+        resumable = false;
+        return resume;
+    }
+
+    // Records the rest of the level's state next to the pellets (every tick; writes a few bytes in place).
+    public void saveProgress(int score, int lives, int level, boolean[] powerPellets) {
+        header.putInt(SCORE_OFFSET, score);
+        header.putInt(LIVES_OFFSET, lives);
+        header.putInt(LEVEL_OFFSET, level);
+        for (int i = 0; i < powerPellets.length && i < MAX_POWER_PELLETS; i++) {
+            header.put(POWER_OFFSET + i, (byte) (powerPellets[i] ? 1 : 0));
+        }
+    }
+
+    public int getSavedScore() {
+        return header.getInt(SCORE_OFFSET);
+    }
+
+    public int getSavedLives() {
+        return header.getInt(LIVES_OFFSET);
+    }
+
+    public int getSavedLevel() {
+        return header.getInt(LEVEL_OFFSET);
+    }
+
+    // Fills in which power pellets the saved level still had.
+    public void restorePowerPellets(boolean[] powerPellets) {
+        for (int i = 0; i < powerPellets.length && i < MAX_POWER_PELLETS; i++) {
+            powerPellets[i] = header.get(POWER_OFFSET + i) != 0;
+        }
+    }
+
+    // Refills every cell from the maze's pellet template, tile by tile (once per level, not per tick).
+    public void refill() {
+        int remaining = 0;
+        int tileCount = maze.getTilesAcross() * maze.getTilesDown();
+        for (int tile = 0; tile < tileCount; tile++) {
+            remaining += maze.pelletTemplate(tile, template);
+            MappedByteBuffer block = tiles.tile(tile);
+            for (int i = 0; i < WORDS_PER_TILE; i++) {
+                block.putLong(i * Long.BYTES, template[i]);
+            }
+            tiles.markDirty(tile);
+        }
+        header.putInt(REMAINING_OFFSET, remaining);
+        header.putInt(SAVED_OFFSET, 1);
+        resumable = false;
+    }
+
+    // Maps the pellet tiles around the cell ahead of use.
+    public void prefetchAround(int x, int y) {
+        int tileX = x >> Maze.TILE_SHIFT;
+        int tileY = y >> Maze.TILE_SHIFT;
+        for (int ty = Math.max(0, tileY - 1); ty <= Math.min(maze.getTilesDown() - 1, tileY + 1); ty++) {
+            for (int tx = Math.max(0, tileX - 1); tx <= Math.min(maze.getTilesAcross() - 1, tileX + 1); tx++) {
+                tiles.prefetch(ty * maze.getTilesAcross() + tx);
+            }
+        }
+    }
+
+    // Has the writer thread write the changed tiles and the header back to the file; returns at once.
+    public void flush() {
+        if (flushQueued.compareAndSet(false, true) && !flushQueue.offer(this)) {
+            flushQueued.set(false); // Queue full; the next flush tries again
+        }
+    }
+
+    // Marks the file as holding no level to resume (the game ended); the writer thread writes it back.
+    public void discardSavedLevel() {
+        header.putInt(SAVED_OFFSET, 0);
+        flush();
+    }
+
+    // Writes everything back and releases the file; the grid must not be used afterwards.
+    public synchronized void close() {
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing pellet file: " + e.getMessage());
+        }
+    }
+
+    // Writes the changed tiles and the header to disk, unless the grid was closed while queued (close()
+    // already wrote it back).
+    private synchronized void force() {
+        if (!channel.isOpen()) return;
+        tiles.flush();
+        header.force();
+    }
+
+    // The writer thread: writes back each grid queued by flush().
+    private static void writeBack() {
+        while (true) {
+            PelletGrid grid;
+            try {
+                grid = flushQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            grid.flushQueued.set(false);
+            try {
+                grid.force();
+            } catch (UncheckedIOException e) {
+                System.err.println("Error writing pellet file: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean sameMaze(byte[] hash) {
+        for (int i = 0; i < hash.length; i++) {
+            if (header.get(HASH_OFFSET + i) != hash[i]) return false;
+        }
+        return true;
+    }
+
+    // Opens and locks the shared pellet file, or a private temp file if it is taken or cannot be created.
+    private static FileChannel open(Path file) throws IOException {
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            FileLock lock = null;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Another board in this process holds it
+            }
+            if (lock != null) return channel;
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error opening pellet file: " + e.getMessage());
+        }
+        return openPrivate();
+    }
+
+    // Opens a temp file only this board uses, deleted on exit.
+    private static FileChannel openPrivate() throws IOException {
+        Path temp = Files.createTempFile("pellets", ".pellets");
+        temp.toFile().deleteOnExit();
+        return FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,215 @@
+// Import packages
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// Toggleable on-screen performance HUD (F3). Shows render FPS, tick and paint time (mean, p99, max),
+// EDT allocation rate, GC activity, EDT queue latency and input latency over a rolling one-second window.
+//
+// The overlay is built so that it does not distort what it measures: samples go into fixed histograms,
+// the text is formatted into preallocated char buffers once per window, and drawing is a handful of
+// drawChars calls. Neither recording nor drawing allocates.
+public class PerformanceOverlay {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final int LINE_COUNT = 6;
+    private static final int LINE_LENGTH = 64;
+    private static final int LINE_HEIGHT = 14;
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+    private static final Color TEXT_COLOR = new Color(0, 255, 0);
+
+    private boolean visible = false;
+
+    // Samples for the window currently being collected
+    private final LatencyHistogram tickTimes = new LatencyHistogram();
+    private final LatencyHistogram paintTimes = new LatencyHistogram();
+    private int framesInWindow = 0;
+    private long windowStart = System.nanoTime();
+
+    // GC and allocation counters at the start of the window
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final com.sun.management.ThreadMXBean threadBean = allocationBean();
+    private long edtThreadId = -1;
+    private long lastAllocatedBytes = 0;
+    private long lastGcCount = 0;
+    private long lastGcMillis = 0;
+
+    // EDT queue latency probe: posted from the EDT, measures how long it waits in the queue
+    private long probePostedAt = 0;
+    private long edtQueueLatencyNanos = 0;
+    private final Runnable queueProbe = () -> {
+        edtQueueLatencyNanos = System.nanoTime() - probePostedAt;
+        probePostedAt = 0;
+    };
+
+    // Source of input latency figures
+    private final InputQueue inputQueue;
+
+    // Text of the last completed window
+    private final char[][] lines = new char[LINE_COUNT][LINE_LENGTH];
+    private final int[] lineLengths = new int[LINE_COUNT];
+    private final Font font = FontManager.RETRO_FONT.deriveFont(9f);
+
+    public PerformanceOverlay(InputQueue inputQueue) {
+        this.inputQueue = inputQueue;
+    }
+
+    public void toggle() {
+        visible = !visible;
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    // Records the duration of one simulation tick.
+    public void recordTick(long nanos) {
+        tickTimes.record(nanos);
+    }
+
+    // Records the duration of one paint pass and rolls the window when it is complete (EDT only).
+    public void recordPaint(long nanos, long now) {
+        paintTimes.record(nanos);
+        framesInWindow++;
+        if (now - windowStart >= WINDOW_NANOS) {
+            rollWindow(now);
+        }
+    }
+
+    // Draws the overlay in the top-left corner.
+    public void draw(Graphics2D g2d) {
+        if (!visible) return;
+
+        g2d.setColor(BACKGROUND);
+        g2d.fillRect(4, 8, 300, LINE_COUNT * LINE_HEIGHT + 8);
+        g2d.setColor(TEXT_COLOR);
+        g2d.setFont(font);
+        for (int i = 0; i < LINE_COUNT; i++) {
+            g2d.drawChars(lines[i], 0, lineLengths[i], 10, 24 + i * LINE_HEIGHT);
+        }
+    }
+
+    // Turns the finished window's samples into text and starts a new window.
+    private void rollWindow(long now) {
+        long elapsed = now - windowStart;
+
+        // Allocation on the EDT since the last window
+        if (edtThreadId < 0) {
+            edtThreadId = Thread.currentThread().getId();
+        }
+        long allocated = threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(edtThreadId);
+        long allocatedKbPerSecond = lastAllocatedBytes == 0 ? 0 : (allocated - lastAllocatedBytes) * 1_000_000L / elapsed;
+        lastAllocatedBytes = allocated;
+
+        // Collections and pause time across all collectors
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (int i = 0; i < collectors.size(); i++) {
+            gcCount += Math.max(0, collectors.get(i).getCollectionCount());
+            gcMillis += Math.max(0, collectors.get(i).getCollectionTime());
+        }
+
+        int line = 0;
+        int n = append(lines[line], 0, "FPS ");
+        n = appendLong(lines[line], n, framesInWindow * WINDOW_NANOS / elapsed);
+        lineLengths[line++] = n;
+
+        lineLengths[line] = appendTimings(lines[line], "TICK ", tickTimes);
+        line++;
+        lineLengths[line] = appendTimings(lines[line], "PAINT", paintTimes);
+        line++;
+
+        n = append(lines[line], 0, "ALLOC ");
+        n = appendLong(lines[line], n, allocatedKbPerSecond);
+        n = append(lines[line], n, " KB/S  GC ");
+        n = appendLong(lines[line], n, gcCount - lastGcCount);
+        n = append(lines[line], n, "X ");
+        n = appendLong(lines[line], n, gcMillis - lastGcMillis);
+        n = append(lines[line], n, "MS");
+        lineLengths[line++] = n;
+        lastGcCount = gcCount;
+        lastGcMillis = gcMillis;
+
+        n = append(lines[line], 0, "EDT QUEUE ");
+        n = appendMillis(lines[line], n, edtQueueLatencyNanos);
+        n = append(lines[line], n, "MS");
+        lineLengths[line++] = n;
+
+        n = append(lines[line], 0, "INPUT AVG ");
+        n = appendMillis(lines[line], n, inputQueue.getMeanLatencyNanos());
+        n = append(lines[line], n, " MAX ");
+        n = appendMillis(lines[line], n, inputQueue.getMaxLatencyNanos());
+        lineLengths[line] = n;
+
+        // Start the next window and probe the EDT queue once per window
+        tickTimes.reset();
+        paintTimes.reset();
+        framesInWindow = 0;
+        windowStart = now;
+        if (probePostedAt == 0) {
+            probePostedAt = System.nanoTime();
+            EventQueue.invokeLater(queueProbe);
+        }
+    }
+
+    // Formats "<label> AVG x P99 y MAX z" in milliseconds.
+    private static int appendTimings(char[] line, String label, LatencyHistogram histogram) {
+        int n = append(line, 0, label);
+        n = append(line, n, " AVG ");
+        n = appendMillis(line, n, histogram.getMean());
+        n = append(line, n, " P99 ");
+        n = appendMillis(line, n, histogram.getPercentile(0.99));
+        n = append(line, n, " MAX ");
+        return appendMillis(line, n, histogram.getMax());
+    }
+
+    // Copies a constant into the buffer without allocating.
+    private static int append(char[] buffer, int pos, String text) {
+        int length = Math.min(text.length(), buffer.length - pos);
+        text.getChars(0, length, buffer, pos);
+        return pos + length;
+    }
+
+    // Writes a non-negative number in decimal.
+    private static int appendLong(char[] buffer, int pos, long value) {
+        if (value < 0) value = 0;
+        int start = pos;
+        do {
+            if (pos >= buffer.length) break;
+            buffer[pos++] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        // Digits were written least significant first
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            char c = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = c;
+        }
+        return pos;
+    }
+
+    // Writes nanoseconds as milliseconds with two decimals.
+    private static int appendMillis(char[] buffer, int pos, long nanos) {
+        long hundredths = nanos / 10_000;
+        pos = appendLong(buffer, pos, hundredths / 100);
+        if (pos + 3 > buffer.length) return pos;
+        buffer[pos++] = '.';
+        buffer[pos++] = (char) ('0' + hundredths / 10 % 10);
+        buffer[pos++] = (char) ('0' + hundredths % 10);
+        return pos;
+    }
+
+    // Thread MX bean with per-thread allocation counters, or null if the JVM lacks it.
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            }
+        }
+        return null;
+    }
+}
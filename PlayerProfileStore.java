@@ -0,0 +1,322 @@
+// Import packages
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Per-player profiles stored as fixed-size records in a memory-mapped file. The file is an open-addressing
+// hash table: a player's name hashes straight to a slot, so lookups and updates touch one or two records in
+// place with no parsing and no rewrite of the file. When the table passes 70% load it is rebuilt at double
+// capacity into a new file that is renamed over the old one.
+//
+// All access runs under an exclusive lock on profiles.lock so several game processes can share the store.
+// A resize marks the old file as retired before the rename, which tells other processes to remap.
+public class PlayerProfileStore {
+    // File header layout
+    private static final int MAGIC = 0x50524F46; // "PROF"
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RETIRED_OFFSET = 12;
+
+    // Record layout (64 bytes per slot)
+    private static final int RECORD_SIZE = 64;
+    private static final int HASH_OFFSET = 0;          // int, hash of the whole name; 0 marks an empty slot
+    private static final int NAME_LENGTH_OFFSET = 4;   // byte
+    private static final int NAME_OFFSET = 5;          // up to 23 bytes of UTF-8, cut at a character boundary
+    private static final int MAX_NAME_BYTES = 23;
+    private static final int BEST_SCORE_OFFSET = 28;   // int
+    private static final int GAMES_PLAYED_OFFSET = 32; // int
+    private static final int TOTAL_PELLETS_OFFSET = 36; // long
+    private static final int LAST_LEVEL_OFFSET = 44;   // int
+    private static final int DEATHS_OFFSET = 48;       // 4 ints, one per ghost personality
+    public static final int GHOST_TYPES = 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.7;
+
+    // Read-only copy of one player's profile.
+    public static final class PlayerProfile {
+        private final String name;
+        private final int bestScore;
+        private final int gamesPlayed;
+        private final long totalPellets;
+        private final int lastLevel;
+        private final int[] deathsByGhost;
+
+        private PlayerProfile(String name, int bestScore, int gamesPlayed, long totalPellets, int lastLevel, int[] deathsByGhost) {
+            this.name = name;
+            this.bestScore = bestScore;
+            this.gamesPlayed = gamesPlayed;
+            this.totalPellets = totalPellets;
+            this.lastLevel = lastLevel;
+            this.deathsByGhost = deathsByGhost;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBestScore() {
+            return bestScore;
+        }
+
+        public int getGamesPlayed() {
+            return gamesPlayed;
+        }
+
+        public long getTotalPellets() {
+            return totalPellets;
+        }
+
+        public int getLastLevel() {
+            return lastLevel;
+        }
+
+        // Deaths caused by the ghost with the given personality (0-3)
+        public int getDeathsByGhost(int personality) {
+            return deathsByGhost[personality];
+        }
+    }
+
+    private final Path file;
+    private final FileChannel lockChannel;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+
+    // Opens (or creates) the store in the given file.
+    public PlayerProfileStore(String fileName) throws IOException {
+        this.file = Paths.get(fileName);
+        this.lockChannel = FileChannel.open(Paths.get(fileName + ".lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = lockChannel.lock();
+        try {
+            if (!Files.exists(file)) {
+                createFile(file, INITIAL_CAPACITY);
+            }
+            map();
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Adds one finished game to the player's profile, creating the profile on first use.
+    public synchronized void recordGame(String player, int score, int pellets, int[] deathsByGhost, int level) throws IOException {
+        byte[] full = player.getBytes(StandardCharsets.UTF_8);
+        byte[] name = encodeName(full);
+        int hash = hash(full);
+        FileLock lock = lockChannel.lock();
+        try {
+            remapIfRetired();
+
+            int slot = findSlot(name, hash);
+            if (readHash(slot) == 0) {
+                if (count() + 1 > capacity * MAX_LOAD) {
+                    resize(capacity * 2);
+                    slot = findSlot(name, hash);
+                }
+                claimSlot(slot, name, hash);
+            }
+
+            int base = recordOffset(slot);
+            buffer.putInt(base + BEST_SCORE_OFFSET, Math.max(buffer.getInt(base + BEST_SCORE_OFFSET), score));
+            buffer.putInt(base + GAMES_PLAYED_OFFSET, buffer.getInt(base + GAMES_PLAYED_OFFSET) + 1);
+            buffer.putLong(base + TOTAL_PELLETS_OFFSET, buffer.getLong(base + TOTAL_PELLETS_OFFSET) + pellets);
+            buffer.putInt(base + LAST_LEVEL_OFFSET, level);
+            for (int i = 0; i < GHOST_TYPES && i < deathsByGhost.length; i++) {
+                int offset = base + DEATHS_OFFSET + i * Integer.BYTES;
+                buffer.putInt(offset, buffer.getInt(offset) + deathsByGhost[i]);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    // The player's profile, or null if they have never finished a game.
+    public synchronized PlayerProfile get(String player) throws IOException {
+        byte[] full = player.getBytes(StandardCharsets.UTF_8);
+        byte[] name = encodeName(full);
+        int hash = hash(full);
+        FileLock lock = lockChannel.lock();
+        try {
+            remapIfRetired();
+
+            int slot = findSlot(name, hash);
+            if (readHash(slot) == 0) return null;
+
+            int base = recordOffset(slot);
+            int[] deaths = new int[GHOST_TYPES];
+            for (int i = 0; i < GHOST_TYPES; i++) {
+                deaths[i] = buffer.getInt(base + DEATHS_OFFSET + i * Integer.BYTES);
+            }
+            return new PlayerProfile(new String(name, StandardCharsets.UTF_8),
+                buffer.getInt(base + BEST_SCORE_OFFSET),
+                buffer.getInt(base + GAMES_PLAYED_OFFSET),
+                buffer.getLong(base + TOTAL_PELLETS_OFFSET),
+                buffer.getInt(base + LAST_LEVEL_OFFSET),
+                deaths);
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Number of players with a profile
+    public synchronized int size() {
+        return count();
+    }
+
+    // Flushes dirty pages to disk.
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    // Flushes and closes the store.
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        lockChannel.close();
+    }
+
+    // Linear probe for the slot holding the name, or the empty slot where it belongs.
+    private int findSlot(byte[] name, int hash) {
+        int mask = capacity - 1;
+        int slot = hash & mask;
+        while (true) {
+            int stored = readHash(slot);
+            if (stored == 0 || (stored == hash && nameMatches(slot, name))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Compares the name stored in a slot with the given bytes.
+    private boolean nameMatches(int slot, byte[] name) {
+        int base = recordOffset(slot);
+        if (buffer.get(base + NAME_LENGTH_OFFSET) != name.length) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(base + NAME_OFFSET + i) != name[i]) return false;
+        }
+        return true;
+    }
+
+    // Writes the key of a new profile into an empty slot.
+    private void claimSlot(int slot, byte[] name, int hash) {
+        int base = recordOffset(slot);
+        buffer.put(base + NAME_LENGTH_OFFSET, (byte) name.length);
+        for (int i = 0; i < name.length; i++) {
+            buffer.put(base + NAME_OFFSET + i, name[i]);
+        }
+        buffer.putInt(base + HASH_OFFSET, hash);
+        buffer.putInt(COUNT_OFFSET, count() + 1);
+    }
+
+    // Rebuilds the table at a new capacity in a fresh file and swaps it in.
+    private void resize(int newCapacity) throws IOException {
+        Path temp = Paths.get(file + ".tmp");
+        createFile(temp, newCapacity);
+
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = target.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(newCapacity));
+            int mask = newCapacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                int hash = readHash(slot);
+                if (hash == 0) continue;
+
+                int newSlot = hash & mask;
+                while (out.getInt(HEADER_SIZE + newSlot * RECORD_SIZE + HASH_OFFSET) != 0) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                for (int i = 0; i < RECORD_SIZE; i++) {
+                    out.put(HEADER_SIZE + newSlot * RECORD_SIZE + i, buffer.get(recordOffset(slot) + i));
+                }
+            }
+            out.putInt(COUNT_OFFSET, count());
+            out.force();
+        }
+
+        // Tell other processes this file is stale, then swap in the new one
+        buffer.putInt(RETIRED_OFFSET, 1);
+        buffer.force();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        channel.close();
+        map();
+    }
+
+    // Reopens the file if another process replaced it with a resized table.
+    private void remapIfRetired() throws IOException {
+        if (buffer.getInt(RETIRED_OFFSET) != 0) {
+            channel.close();
+            map();
+        }
+    }
+
+    // Maps the whole store file read-write.
+    private void map() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a player profile store: " + file);
+        }
+        capacity = buffer.getInt(CAPACITY_OFFSET);
+    }
+
+    // Creates an empty store file with the given capacity.
+    private static void createFile(Path path, int capacity) throws IOException {
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = out.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(CAPACITY_OFFSET, capacity);
+            header.putInt(COUNT_OFFSET, 0);
+            header.force();
+        }
+    }
+
+    private int count() {
+        return buffer.getInt(COUNT_OFFSET);
+    }
+
+    private int readHash(int slot) {
+        return buffer.getInt(recordOffset(slot) + HASH_OFFSET);
+    }
+
+    private static int recordOffset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+    }
+
+    // Non-zero hash of the name bytes (zero is reserved for empty slots)
+    private static int hash(byte[] name) {
+        int h = 0x811C9DC5;
+        for (byte b : name) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        return h == 0 ? 1 : h;
+    }
+
+    // The name's UTF-8 bytes cut to the record's name field, backing up so no character is split. Long names
+    // sharing a cut still get their own records, as the slot is keyed on the hash of the whole name.
+    private static byte[] encodeName(byte[] bytes) {
+        if (bytes.length <= MAX_NAME_BYTES) return bytes;
+        int length = MAX_NAME_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--; // bytes[length] continues the character before it
+        }
+        byte[] trimmed = new byte[length];
+        System.arraycopy(bytes, 0, trimmed, 0, length);
+        return trimmed;
+    }
+}
@@ -0,0 +1,159 @@
+// Import packages
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+// Stress test for score submission across threads and processes. It starts several game processes on one
+// scratch directory, and each runs several threads that submit distinct scores through HighScoreManager at
+// the same time. Once every process has flushed and exited, it checks the files they share:
+// - every score must be in the full leaderboard exactly once
+// - the top table must hold exactly the best scores submitted
+// It exits with status 1 if any score was lost or counted twice.
+public class ScoreStressTest {
+    private static final String SUBMITTER = "--submitter";
+
+    // Usage: java ScoreStressTest [processes] [threads per process] [scores per thread]
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(SUBMITTER)) {
+            submit(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int scores = args.length > 2 ? Integer.parseInt(args[2]) : 250;
+        long total = (long) processes * threads * scores;
+        if (total > Leaderboard.MAX_TRACKED_SCORE / Leaderboard.BUCKET_WIDTH) {
+            System.err.println("Too many scores to give each its own leaderboard bucket: " + total);
+            System.exit(1);
+        }
+
+        // An empty table up front, so no process writes the default scores into the results
+        Path dir = Files.createTempDirectory("score-stress");
+        Files.createFile(dir.resolve("highscores.txt"));
+
+        long start = System.nanoTime();
+        List<Process> running = new ArrayList<>();
+        for (int p = 0; p < processes; p++) {
+            running.add(new ProcessBuilder(javaCommand(), "-cp", absoluteClassPath(), "ScoreStressTest", SUBMITTER,
+                    String.valueOf(p), String.valueOf(threads), String.valueOf(scores))
+                .directory(dir.toFile())
+                .inheritIO()
+                .start());
+        }
+        for (Process process : running) {
+            if (process.waitFor() != 0) {
+                System.err.println("A submitter process failed; scratch files left in " + dir);
+                System.exit(1);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<String> problems = verify(dir, total);
+        for (String problem : problems) {
+            System.err.println(problem);
+        }
+        if (!problems.isEmpty()) {
+            System.err.println("FAILED: " + problems.size() + " problems; scratch files left in " + dir);
+            System.exit(1);
+        }
+        deleteAll(dir);
+        System.out.printf("OK: %d scores from %d processes x %d threads in %.2fs (%.0f per second)%n",
+            total, processes, threads, seconds, total / seconds);
+    }
+
+    // The i-th score overall; distinct, and each in its own leaderboard bucket
+    private static int score(long i) {
+        return (int) ((i + 1) * Leaderboard.BUCKET_WIDTH);
+    }
+
+    // Submitter process: the threads submit their share of the scores all at once, then everything is flushed.
+    private static void submit(int process, int threads, int scores) throws InterruptedException {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long first = ((long) process * threads + t) * scores;
+            Thread worker = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int j = 0; j < scores; j++) {
+                    HighScoreManager.addHighScore(score(first + j));
+                }
+            }, "submitter-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        HighScoreManager.flush();
+    }
+
+    // Checks the shared files against the scores every submitter was given.
+    private static List<String> verify(Path dir, long total) throws IOException {
+        List<String> problems = new ArrayList<>();
+        Leaderboard board = new Leaderboard(dir.resolve("leaderboard").toString());
+        try {
+            if (board.size() != total) {
+                problems.add("Leaderboard holds " + board.size() + " scores, expected " + total);
+            }
+            for (long i = 0; i < total; i++) {
+                int score = score(i);
+                long copies = board.rank(score - Leaderboard.BUCKET_WIDTH) - board.rank(score);
+                if (copies != 1) {
+                    problems.add("Score " + score + " is in the leaderboard " + copies + " times");
+                }
+            }
+        } finally {
+            board.close();
+        }
+
+        // The table plus anything still in the journal, best first
+        List<Integer> table = new ArrayList<>();
+        for (String name : new String[] {"highscores.txt", "highscores.journal"}) {
+            Path file = dir.resolve(name);
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file)) {
+                    if (!line.isBlank()) table.add(Integer.parseInt(line.trim()));
+                }
+            }
+        }
+        table.sort(Comparator.reverseOrder());
+        for (int rank = 0; rank < 5 && rank < total; rank++) {
+            int expected = score(total - 1 - rank);
+            if (rank >= table.size() || table.get(rank) != expected) {
+                problems.add("High score #" + (rank + 1) + " is " + (rank < table.size() ? table.get(rank) : "missing")
+                    + ", expected " + expected);
+            }
+        }
+        return problems;
+    }
+
+    private static String javaCommand() {
+        return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    // This process's class path with every entry made absolute, for processes started in another directory
+    private static String absoluteClassPath() {
+        StringBuilder path = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (path.length() > 0) path.append(File.pathSeparator);
+            path.append(Paths.get(entry).toAbsolutePath());
+        }
+        return path.toString();
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+// Fixed-point positions below cell resolution. A position is cells * ONE (16.16 fixed point), so an entity can
+// stand anywhere between two cell centres, speeds are whole units per tick, and the same arithmetic gives
+// identical results on every machine. Movement stays on the grid: Pacman and the ghosts travel from one cell
+// centre to the next, and the fraction only says how far along that step they are.
+public final class SubCell {
+    public static final int SHIFT = 16;
+    public static final int ONE = 1 << SHIFT;
+
+    // Entities touch when their centres come closer than half a cell
+    private static final double TOUCH_DISTANCE = ONE / 2.0;
+
+    private SubCell() {
+    }
+
+    // Units moved per tick at the given speed, capped at one cell so nothing skips a cell between ticks.
+    public static int step(double cellsPerSecond, int tickRate) {
+        return (int) Math.max(1, Math.min(ONE, Math.round(cellsPerSecond * ONE / tickRate)));
+    }
+
+    // Screen pixels for a fixed-point coordinate.
+    public static int toPixels(int position, int cellSize) {
+        return (int) ((long) position * cellSize >> SHIFT);
+    }
+
+    // True if two entities moving in straight lines over the same tick, from (a0, b0) to (a1, b1), come within
+    // touching distance at any moment of it. Sweeping the whole path, rather than comparing where both ended
+    // up, catches the tick in which they swap cells or pass through each other. Horizontal differences are
+    // taken the short way round a maze of the given width, for the tunnels.
+    public static boolean sweptTouch(int ax0, int ay0, int ax1, int ay1,
+                                     int bx0, int by0, int bx1, int by1, int mazeWidth) {
+        long span = (long) mazeWidth << SHIFT;
+        double startX = shortest(ax0 - bx0, span);
+        double startY = ay0 - by0;
+        double moveX = shortest(ax1 - ax0, span) - shortest(bx1 - bx0, span);
+        double moveY = (ay1 - ay0) - (by1 - by0);
+
+        // Closest approach of the relative motion start + t * move, t in [0, 1]
+        double moveSquared = moveX * moveX + moveY * moveY;
+        double t = moveSquared == 0 ? 0 : Math.max(0, Math.min(1, -(startX * moveX + startY * moveY) / moveSquared));
+        double closestX = startX + t * moveX;
+        double closestY = startY + t * moveY;
+        return closestX * closestX + closestY * closestY < TOUCH_DISTANCE * TOUCH_DISTANCE;
+    }
+
+    // A horizontal difference folded into (-span/2, span/2]
+    private static long shortest(long delta, long span) {
+        if (delta > span / 2) return delta - span;
+        if (delta < -span / 2) return delta + span;
+        return delta;
+    }
+}
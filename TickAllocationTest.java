@@ -0,0 +1,97 @@
+// Import packages
+import java.awt.event.KeyEvent;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Checks that a warmed-up game allocates nothing on its game thread per tick. It drives a headless board
+// past a warm-up, then measures each tick with the thread's allocation counter. Ticks that start a game or
+// end a life, level or game are one-off paths and are counted apart; every other tick must allocate zero
+// bytes. It exits with status 1 if any of them allocated.
+//
+// The game runs with tiered compilation off. Moving a method up the compiler tiers can allocate on the thread
+// running it, at any point in a run, which would show up here as a stray allocating tick; with the optimizing
+// compiler alone, the warm-up leaves nothing to recompile.
+public class TickAllocationTest {
+    private static final int WARMUP_TICKS = 100000;
+
+    // Usage: java TickAllocationTest [ticks] [difficulty]
+    public static void main(String[] args) throws Exception {
+        if (tieredCompilation()) {
+            System.exit(runWithoutTiers(args));
+        }
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int difficulty = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Run without a display; must be set before any AWT class initializes
+        System.setProperty("java.awt.headless", "true");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM cannot count allocated bytes per thread");
+            System.exit(1);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        GameBoard board = new GameBoard(false);
+        board.setDifficulty(difficulty);
+        boolean[] transition = new boolean[1];
+        board.getEventBus().addListener(snapshot -> transition[0] =
+            snapshot.getEventCount(GameEventBus.Type.PACMAN_DIED) > 0
+                || snapshot.getEventCount(GameEventBus.Type.LEVEL_CLEARED) > 0
+                || snapshot.getEventCount(GameEventBus.Type.GAME_OVER) > 0
+                || snapshot.getEventCount(GameEventBus.Type.GAME_STARTED) > 0);
+
+        // The warm-up runs the same measured loop, so the measuring is compiled too before any tick counts
+        long steadyTicks = 0;
+        long steadyBytes = 0;
+        long worstBytes = 0;
+        long oneOffTicks = 0;
+        for (int t = -WARMUP_TICKS; t < ticks; t++) {
+            transition[0] = false;
+            long before = threads.getCurrentThreadAllocatedBytes();
+            board.step();
+            long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+            if (t < 0) {
+                // Still warming up
+            } else if (transition[0]) {
+                oneOffTicks++;
+            } else {
+                steadyTicks++;
+                steadyBytes += bytes;
+                worstBytes = Math.max(worstBytes, bytes);
+            }
+            // Restarting happens between ticks, as a key press would
+            if (board.isGameOver()) {
+                board.handleKeyPress(KeyEvent.VK_R);
+            }
+        }
+
+        System.out.printf("%d steady ticks: %d bytes allocated (worst tick %d); %d one-off ticks not counted%n",
+            steadyTicks, steadyBytes, worstBytes, oneOffTicks);
+        if (steadyBytes != 0) {
+            System.err.println("FAILED: steady ticks allocated on the game thread");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static boolean tieredCompilation() {
+        com.sun.management.HotSpotDiagnosticMXBean hotspot =
+            ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+        return Boolean.parseBoolean(hotspot.getVMOption("TieredCompilation").getValue());
+    }
+
+    // Runs the test again in a JVM with tiered compilation off, and returns its exit status.
+    private static int runWithoutTiers(String[] args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-XX:-TieredCompilation");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("TickAllocationTest");
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+}
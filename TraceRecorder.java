@@ -0,0 +1,129 @@
+// Import packages
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Opt-in timeline tracer that exports Chrome Trace Event JSON (open in chrome://tracing or Perfetto).
+// Enable with -Dpacman.trace=<file>; the trace is written at exit and on demand (F9 in game).
+//
+// Each thread records spans into its own fixed-size ring buffer, so recording takes no locks and never
+// allocates. A buffer has a single writer and publishes its write position with an ordered store; the
+// exporter reads buffers while the game keeps running and skips any slot that may have been overwritten.
+// When tracing is disabled, begin() and end() reduce to a constant check.
+public class TraceRecorder {
+    public static final String TRACE_FILE = System.getProperty("pacman.trace");
+    public static final boolean ENABLED = TRACE_FILE != null;
+
+    private static final int BUFFER_CAPACITY = 1 << 16; // Spans kept per thread
+    private static final long ORIGIN = System.nanoTime();
+
+    // Span names, indexed by the id returned from register()
+    private static final List<String> names = new ArrayList<>();
+    private static final ConcurrentLinkedQueue<SpanBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<SpanBuffer> localBuffer = ThreadLocal.withInitial(() -> {
+        SpanBuffer buffer = new SpanBuffer(Thread.currentThread());
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> export(TRACE_FILE), "trace-export"));
+        }
+    }
+
+    // Ring buffer of spans written by one thread.
+    private static final class SpanBuffer {
+        private final long threadId;
+        private final String threadName;
+        private final long[] starts = new long[BUFFER_CAPACITY];
+        private final long[] ends = new long[BUFFER_CAPACITY];
+        private final int[] nameIds = new int[BUFFER_CAPACITY];
+        private final AtomicLong written = new AtomicLong();
+
+        SpanBuffer(Thread thread) {
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+        }
+
+        void add(int nameId, long start, long end) {
+            long index = written.get();
+            int slot = (int) (index & (BUFFER_CAPACITY - 1));
+            starts[slot] = start;
+            ends[slot] = end;
+            nameIds[slot] = nameId;
+            written.lazySet(index + 1);
+        }
+    }
+
+    // Registers a span name and returns its id; call once, typically from a static initializer.
+    public static synchronized int register(String name) {
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    // Start timestamp for a span, or 0 when tracing is off.
+    public static long begin() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // Records a span from the given start timestamp until now.
+    public static void end(int nameId, long start) {
+        if (!ENABLED) return;
+        localBuffer.get().add(nameId, start, System.nanoTime());
+    }
+
+    // Writes every buffered span as Chrome Trace Event JSON.
+    public static void export(String file) {
+        if (!ENABLED) return;
+
+        String[] nameTable;
+        synchronized (TraceRecorder.class) {
+            nameTable = names.toArray(new String[0]);
+        }
+
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(file))) {
+            out.write("{\"traceEvents\":[\n");
+            boolean first = true;
+            for (SpanBuffer buffer : buffers) {
+                // Thread name metadata so lanes are labelled in the viewer
+                if (!first) out.write(",\n");
+                first = false;
+                out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + buffer.threadId
+                    + ",\"args\":{\"name\":\"" + escape(buffer.threadName) + "\"}}");
+
+                // Leave a margin for slots the owning thread may be overwriting right now
+                long written = buffer.written.get();
+                long oldest = Math.max(0, written - BUFFER_CAPACITY + 64);
+                for (long i = oldest; i < written; i++) {
+                    int slot = (int) (i & (BUFFER_CAPACITY - 1));
+                    long start = buffer.starts[slot];
+                    long end = buffer.ends[slot];
+                    int nameId = buffer.nameIds[slot];
+                    if (end < start || nameId < 0 || nameId >= nameTable.length) continue;
+
+                    out.write(",\n{\"name\":\"" + escape(nameTable[nameId]) + "\",\"ph\":\"X\",\"pid\":1,\"tid\":" + buffer.threadId
+                        + ",\"ts\":" + micros(start - ORIGIN) + ",\"dur\":" + micros(end - start) + "}");
+                }
+            }
+            out.write("\n]}\n");
+            System.out.println("Trace written to " + file);
+        } catch (IOException e) {
+            System.err.println("Error writing trace: " + e.getMessage());
+        }
+    }
+
+    // Nanoseconds as fractional microseconds, the unit Chrome traces use.
+    private static String micros(long nanos) {
+        return (nanos / 1000) + "." + String.format("%03d", nanos % 1000);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,94 @@
+// Import packages
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Pre-rendered maze walls, cut into square tiles of TILE_CELLS x TILE_CELLS cells. Painting the maze becomes
+// a few image blits for the tiles under the viewport instead of a fillRect per wall cell. Tiles are rendered
+// on first use and kept in a small LRU cache, so memory is bounded by the viewport, not the maze.
+public class WallLayer {
+    public static final int TILE_CELLS = 16;
+    private static final int MAX_CACHED_TILES = 20; // About 13 MB of tiles; a full viewport needs at most 9
+
+    private final Maze maze;
+    private final int cellSize;
+    private final Color wallColor;
+    private final Color backgroundColor;
+
+    // Rendered tiles keyed by tileY * tilesAcross + tileX, least recently drawn first
+    private final Map<Integer, BufferedImage> tiles = new LinkedHashMap<>(MAX_CACHED_TILES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+
+    public WallLayer(Maze maze, int cellSize, Color wallColor, Color backgroundColor) {
+        this.maze = maze;
+        this.cellSize = cellSize;
+        this.wallColor = wallColor;
+        this.backgroundColor = backgroundColor;
+    }
+
+    // Draws the tiles overlapping the given world-space pixel rectangle; returns how many were drawn.
+    public int draw(Graphics2D g2d, int left, int top, int width, int height) {
+        int tilePixels = TILE_CELLS * cellSize;
+        int tilesAcross = (maze.getWidth() + TILE_CELLS - 1) / TILE_CELLS;
+        int tilesDown = (maze.getHeight() + TILE_CELLS - 1) / TILE_CELLS;
+
+        int firstX = Math.max(0, left / tilePixels);
+        int firstY = Math.max(0, top / tilePixels);
+        int lastX = Math.min(tilesAcross - 1, (left + width - 1) / tilePixels);
+        int lastY = Math.min(tilesDown - 1, (top + height - 1) / tilePixels);
+
+        int drawn = 0;
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                g2d.drawImage(tile(tx, ty, tilesAcross), tx * tilePixels, ty * tilePixels, null);
+                drawn++;
+            }
+        }
+        return drawn;
+    }
+
+    // Cached tile image, rendering it on a miss.
+    private BufferedImage tile(int tileX, int tileY, int tilesAcross) {
+        Integer key = tileY * tilesAcross + tileX;
+        BufferedImage image = tiles.get(key);
+        if (image == null) {
+            image = render(tileX, tileY);
+            tiles.put(key, image);
+        }
+        return image;
+    }
+
+    // Paints one tile's walls, merging runs of wall cells in a row into single rectangles.
+    private BufferedImage render(int tileX, int tileY) {
+        int size = TILE_CELLS * cellSize;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(backgroundColor);
+        g.fillRect(0, 0, size, size);
+        g.setColor(wallColor);
+
+        int baseX = tileX * TILE_CELLS;
+        int baseY = tileY * TILE_CELLS;
+        for (int y = 0; y < TILE_CELLS && baseY + y < maze.getHeight(); y++) {
+            int x = 0;
+            while (x < TILE_CELLS && baseX + x < maze.getWidth()) {
+                if (!maze.isWall(baseX + x, baseY + y)) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < TILE_CELLS && baseX + x < maze.getWidth() && maze.isWall(baseX + x, baseY + y)) {
+                    x++;
+                }
+                g.fillRect(start * cellSize, y * cellSize, (x - start) * cellSize, cellSize);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+}